@@ -0,0 +1,59 @@
+package com.ecamt35.messageservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RedisCacheClient 进程内 L1 缓存配置。
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cache.l1")
+public class LocalCacheProperties {
+
+    /**
+     * 是否启用 L1（关闭时所有读请求直达 Redis）。
+     */
+    private boolean enabled = false;
+
+    /**
+     * 跨节点失效的 Redis pub/sub 频道。
+     */
+    private String invalidationChannel = "im:cache:l1:invalidate";
+
+    /**
+     * 命中率统计日志间隔（秒），<=0 关闭。
+     */
+    private int statsLogIntervalSeconds = 60;
+
+    /**
+     * 按 key 前缀划分的 L1 分区，未匹配任何前缀的 key 不进 L1；多个前缀匹配时取最长前缀。
+     */
+    private List<Tier> tiers = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Tier {
+
+        /**
+         * 业务 key 前缀，如 im:conv:
+         */
+        private String prefix;
+
+        /**
+         * 最大条目数，超出按 LRU 淘汰。
+         */
+        private int maxSize = 10000;
+
+        /**
+         * 条目存活时间（秒），兜底跨节点失效消息丢失的情况。
+         */
+        private long ttlSeconds = 30;
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scripting.support.ResourceScriptSource;
 
+import java.util.List;
+
 @Configuration
 public class LuaScriptsConfig {
 
@@ -40,4 +42,116 @@ public class LuaScriptsConfig {
         script.setResultType(Long.class);
         return script;
     }
-}
\ No newline at end of file
+
+    @Bean("setContainsScript")
+    public DefaultRedisScript<Long> setContainsScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/set_contains.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("readCursorAdvanceScript")
+    public DefaultRedisScript<Long> readCursorAdvanceScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/read_cursor_advance.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("memberListGetScript")
+    public DefaultRedisScript<List> memberListGetScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/member_list_get.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean("memberListFillScript")
+    public DefaultRedisScript<Long> memberListFillScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/member_list_fill.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("memberListUpdateScript")
+    public DefaultRedisScript<Long> memberListUpdateScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/member_list_update.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("msgTailAppendScript")
+    public DefaultRedisScript<List> msgTailAppendScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/msg_tail_append.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean("msgTailAcctFlushScript")
+    public DefaultRedisScript<Long> msgTailAcctFlushScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/msg_tail_acct_flush.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("msgTailEvictScript")
+    public DefaultRedisScript<List> msgTailEvictScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/msg_tail_evict.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean("wsRouteRegisterScript")
+    public DefaultRedisScript<List> wsRouteRegisterScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/ws_route_register.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean("wsRouteReleaseBatchScript")
+    public DefaultRedisScript<Long> wsRouteReleaseBatchScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/ws_route_release_batch.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("seqLeaseReserveScript")
+    public DefaultRedisScript<List> seqLeaseReserveScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/seq_lease_reserve.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean("seqLeaseRenewScript")
+    public DefaultRedisScript<Long> seqLeaseRenewScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/seq_lease_renew.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("seqIncrAboveHiScript")
+    public DefaultRedisScript<Long> seqIncrAboveHiScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/seq_incr_above_hi.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    @Bean("seqLeaseReleaseScript")
+    public DefaultRedisScript<Long> seqLeaseReleaseScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/seq_lease_release.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
@@ -3,12 +3,21 @@ package com.ecamt35.messageservice.config;
 import com.ecamt35.messageservice.constant.MessageDispatchConstant;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class MessageDispatchMQConfig {
 
@@ -38,6 +47,43 @@ public class MessageDispatchMQConfig {
                 .with(messageDispatchConstant.getRoutingKey());
     }
 
+    /**
+     * 分区队列：single-active-consumer 保证多节点同时订阅时每个分区只有一个消费者在处理，分区内按投递顺序执行
+     */
+    @Bean
+    Declarables messageDispatchPartitionDeclarables() {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int i = 0; i < messageDispatchConstant.getPartitions(); i++) {
+            Queue queue = QueueBuilder.durable(messageDispatchConstant.getPartitionQueue(i))
+                    .singleActiveConsumer()
+                    .deadLetterExchange(messageDispatchConstant.getDeadExchange())
+                    .deadLetterRoutingKey(messageDispatchConstant.getDeadRoutingKey())
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue)
+                    .to(messageDispatchExchange())
+                    .with(messageDispatchConstant.getPartitionRoutingKey(i)));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * 分区监听容器工厂：沿用 spring.rabbitmq.listener.simple 的重试/确认配置，
+     * 每个分区固定单消费者以保证顺序，prefetch 控制分区内预取深度（处理仍按序串行）
+     */
+    @Bean
+    SimpleRabbitListenerContainerFactory messageDispatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${message.dispatch.prefetch:32}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(Math.max(1, prefetch));
+        return factory;
+    }
+
     @Bean
     DirectExchange deadMessageDispatchExchange() {
         return new DirectExchange(messageDispatchConstant.getDeadExchange(), true, false);
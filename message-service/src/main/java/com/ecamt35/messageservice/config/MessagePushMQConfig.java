@@ -40,6 +40,21 @@ public class MessagePushMQConfig {
                 .with(messagePushConstant.getWebsocketMessageKey());
     }
 
+    @Bean
+    Queue websocketMessageBatchQueue() {
+        return QueueBuilder.durable(messagePushConstant.getWebsocketMessageBatchQueue())
+                .deadLetterExchange(messagePushConstant.getDeadWebsocketMessageExchange())
+                .deadLetterRoutingKey(messagePushConstant.getDeadWebsocketMessageRoutingKey())
+                .build();
+    }
+
+    @Bean
+    Binding websocketBatchBinding() {
+        return BindingBuilder.bind(websocketMessageBatchQueue())
+                .to(websocketMessageExchange())
+                .with(messagePushConstant.getWebsocketMessageBatchKey());
+    }
+
 
     @Bean
     DirectExchange deadWebsocketExchange() {
@@ -1,19 +1,28 @@
 package com.ecamt35.messageservice.config;
 
 import com.ecamt35.messageservice.service.NacosManualRegistrationService;
+import com.ecamt35.messageservice.websocket.CompressionMetrics;
+import com.ecamt35.messageservice.websocket.MailboxMetrics;
+import com.ecamt35.messageservice.websocket.OutboundBackpressureHandler;
+import com.ecamt35.messageservice.websocket.PacketCodec;
 import com.ecamt35.messageservice.websocket.UserChannelRegistry;
 import com.ecamt35.messageservice.websocket.WebSocketFrameHandler;
+import com.ecamt35.messageservice.websocket.WireFormat;
 import com.ecamt35.messageservice.websocket.dispatch.MessageDispatcher;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 import io.netty.handler.timeout.IdleStateHandler;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -23,6 +32,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -45,20 +56,99 @@ public class NettyServer {
     @Value("${netty.websocket.idle-timeout:60}")
     private int idleTimeout;
 
+    /**
+     * 写缓冲水位（字节）：超过高水位 Channel 变为不可写，回落到低水位后恢复
+     */
+    @Value("${netty.websocket.write-buffer.low-water-mark:32768}")
+    private int writeBufferLowWaterMark;
+
+    @Value("${netty.websocket.write-buffer.high-water-mark:131072}")
+    private int writeBufferHighWaterMark;
+
+    /**
+     * 不可写期间每连接最多积压的下行帧数
+     */
+    @Value("${netty.websocket.outbound-queue.max-pending:256}")
+    private int outboundMaxPending;
+
+    /**
+     * 积压溢出策略：collapse（折叠为会话提示）| close（关闭慢连接）
+     */
+    @Value("${netty.websocket.outbound-queue.overflow-policy:collapse}")
+    private String outboundOverflowPolicy;
+
+    /**
+     * 每连接上行包串行邮箱的最大排队数，超过则关闭连接
+     */
+    @Value("${netty.websocket.mailbox.max-depth:1024}")
+    private int mailboxMaxDepth;
+
+    /**
+     * 邮箱汇总统计输出间隔（秒），<=0 不输出
+     */
+    @Value("${netty.websocket.mailbox.stats-log-interval-seconds:60}")
+    private int mailboxStatsLogIntervalSeconds;
+
+    /**
+     * 是否允许客户端通过子协议协商二进制格式（cbor），关闭时只接受 JSON 文本帧
+     */
+    @Value("${netty.websocket.binary-enabled:true}")
+    private boolean binaryEnabled;
+
+    /**
+     * 传输层：auto|nio|epoll|io_uring
+     */
+    @Value("${netty.websocket.transport:auto}")
+    private String transport;
+
+    /**
+     * 工作线程数，0 使用 Netty 默认值
+     */
+    @Value("${netty.websocket.worker-threads:0}")
+    private int workerThreads;
+
+    /**
+     * 以下仅 epoll 生效
+     * reuse-port=true 时同一端口绑定 acceptor-threads 个监听 socket，由内核分摊 accept
+     */
+    @Value("${netty.websocket.epoll.reuse-port:false}")
+    private boolean reusePort;
+
+    @Value("${netty.websocket.epoll.acceptor-threads:1}")
+    private int acceptorThreads;
+
+    /**
+     * TCP_FASTOPEN 队列长度，0 关闭
+     */
+    @Value("${netty.websocket.epoll.tcp-fastopen:0}")
+    private int tcpFastOpen;
+
+    /**
+     * true 边缘触发（Netty 默认），false 水平触发
+     */
+    @Value("${netty.websocket.epoll.edge-triggered:true}")
+    private boolean edgeTriggered;
+
     @Resource
     private MessageDispatcher messageDispatcher;
     @Resource
-    private ObjectMapper objectMapper;
+    private PacketCodec packetCodec;
     @Resource
     private UserChannelRegistry userChannelRegistry;
     @Resource(name = "virtualExecutor")
     private ExecutorService virtualExecutor;
     @Resource
     private NacosManualRegistrationService nacosManualRegistrationService;
+    @Resource
+    private WebSocketCompressionProperties compressionProperties;
+    @Resource
+    private CompressionMetrics compressionMetrics;
+    @Resource
+    private MailboxMetrics mailboxMetrics;
 
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new ArrayList<>();
 
     /**
      * 初始化 Netty 服务器
@@ -66,51 +156,85 @@ public class NettyServer {
     @PostConstruct
     public void start() {
         try {
-            bossGroup = new NioEventLoopGroup(1);
-            workerGroup = new NioEventLoopGroup();
+            NettyTransport selected = NettyTransport.select(transport);
+            boolean epoll = selected == NettyTransport.EPOLL;
+            int acceptors = epoll && reusePort ? Math.max(1, acceptorThreads) : 1;
+
+            bossGroup = selected.newEventLoopGroup(acceptors);
+            workerGroup = selected.newEventLoopGroup(workerThreads);
 
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(selected.serverChannelClass())
                     .option(ChannelOption.SO_BACKLOG, 1024) // 队列大小
                     .option(ChannelOption.SO_REUSEADDR, true) // 多次绑定
                     .childOption(ChannelOption.SO_KEEPALIVE, true) // TCP keepalive
                     .childOption(ChannelOption.TCP_NODELAY, true) // 禁用 Nagle 算法
-                    .childHandler(new ChannelInitializer<SocketChannel>() {
-                        @Override
-                        protected void initChannel(SocketChannel ch) {
-                            ChannelPipeline pipeline = ch.pipeline();
-
-                            // HTTP 编解码
-                            pipeline.addLast(new HttpServerCodec());
-                            // 聚合 HTTP 请求
-                            pipeline.addLast(new HttpObjectAggregator(maxFrameSize));
-                            // WebSocket 协议升级
-                            pipeline.addLast(new WebSocketServerProtocolHandler(
-                                    path, null, true, maxFrameSize, false, true
-                            ));
-                            // 分片帧聚合
-                            pipeline.addLast(new WebSocketFrameAggregator(maxFrameSize));
-                            // 空闲检测（仅读空闲）
-                            pipeline.addLast(new IdleStateHandler(
-                                    idleTimeout, 0, 0, TimeUnit.SECONDS
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+            if (epoll) {
+                applyEpollOptions(bootstrap, acceptors);
+            }
+            OutboundBackpressureHandler.OverflowPolicy overflowPolicy =
+                    OutboundBackpressureHandler.OverflowPolicy.valueOf(outboundOverflowPolicy.trim().toUpperCase());
+            boolean compression = compressionProperties.isEnabled();
+            if (compression) {
+                compressionMetrics.setMinFrameSize(compressionProperties.getMinFrameSize());
+                scheduleCompressionStatsLog();
+            }
+            scheduleMailboxStatsLog();
+
+            bootstrap.childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ChannelPipeline pipeline = ch.pipeline();
+
+                    // HTTP 编解码
+                    pipeline.addLast(new HttpServerCodec());
+                    // 聚合 HTTP 请求
+                    pipeline.addLast(new HttpObjectAggregator(maxFrameSize));
+                    // permessage-deflate 扩展协商（压缩编解码器握手成功后插入在扩展处理器之后）
+                    if (compression) {
+                        pipeline.addLast(compressionMetrics.wireSideHandler());
+                        pipeline.addLast(new WebSocketServerExtensionHandler(newDeflateHandshaker()));
+                        pipeline.addLast(compressionMetrics.rawSideHandler());
+                    }
+                    // WebSocket 协议升级；子协议协商报文格式（json/cbor），未协商默认 json
+                    pipeline.addLast(new WebSocketServerProtocolHandler(
+                            path, binaryEnabled ? WireFormat.supportedSubprotocols() : null,
+                            true, maxFrameSize, false, true
+                    ));
+                    // 分片帧聚合
+                    pipeline.addLast(new WebSocketFrameAggregator(maxFrameSize));
+                    // 空闲检测（仅读空闲）
+                    pipeline.addLast(new IdleStateHandler(
+                            idleTimeout, 0, 0, TimeUnit.SECONDS
+                    ));
+                    // WebSocket 消息处理器
+                    pipeline.addLast(
+                            new WebSocketFrameHandler(
+                                    packetCodec,
+                                    userChannelRegistry,
+                                    virtualExecutor,
+                                    messageDispatcher,
+                                    nodeName,
+                                    mailboxMaxDepth,
+                                    mailboxMetrics
                             ));
-                            // WebSocket 消息处理器
-                            pipeline.addLast(
-                                    new WebSocketFrameHandler(
-                                            objectMapper,
-                                            userChannelRegistry,
-                                            virtualExecutor,
-                                            messageDispatcher,
-                                            nodeName
-                                    ));
-                        }
-                    });
-
-            // 绑定端口并启动
-            serverChannel = bootstrap.bind(port).sync().channel();
-            int actualPort = ((InetSocketAddress) serverChannel.localAddress()).getPort();
-            log.info("Netty WebSocket server started at ws://localhost:{}{}", actualPort, path);
+                    // 下行背压（必须位于末尾，拦截 channel.write）
+                    pipeline.addLast(new OutboundBackpressureHandler(outboundMaxPending, overflowPolicy, packetCodec));
+                }
+            });
+
+            // 绑定端口并启动；SO_REUSEPORT 时每个 acceptor 各绑定一个监听 socket
+            Channel first = bootstrap.bind(port).sync().channel();
+            serverChannels.add(first);
+            int actualPort = ((InetSocketAddress) first.localAddress()).getPort();
+            for (int i = 1; i < acceptors; i++) {
+                serverChannels.add(bootstrap.bind(actualPort).sync().channel());
+            }
+            log.info("Netty WebSocket server started at ws://localhost:{}{}, transport={}, acceptors={}",
+                    actualPort, path, selected, acceptors);
             // Netty 端口可用后直接执行 Nacos 注册，避免事件时序导致注册逻辑未触发。
             nacosManualRegistrationService.registerAfterNettyBound(actualPort);
 
@@ -126,6 +250,67 @@ public class NettyServer {
         }
     }
 
+    /**
+     * epoll 专属参数
+     */
+    private void applyEpollOptions(ServerBootstrap bootstrap, int acceptors) {
+        bootstrap.option(EpollChannelOption.EPOLL_MODE,
+                        edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED)
+                .childOption(EpollChannelOption.EPOLL_MODE,
+                        edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+        if (acceptors > 1) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (tcpFastOpen > 0) {
+            if (Epoll.isTcpFastOpenServerSideAvailable()) {
+                bootstrap.option(ChannelOption.TCP_FASTOPEN, tcpFastOpen);
+            } else {
+                log.warn("TCP_FASTOPEN is not available on this kernel, ignored");
+            }
+        }
+    }
+
+    /**
+     * permessage-deflate 握手器：小于阈值的下行帧跳过压缩，上行帧按客户端 RSV1 标记解压
+     */
+    private PerMessageDeflateServerExtensionHandshaker newDeflateHandshaker() {
+        int minFrameSize = compressionProperties.getMinFrameSize();
+        WebSocketExtensionFilterProvider filterProvider = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                return frame -> frame.content().readableBytes() < minFrameSize;
+            }
+
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+        return new PerMessageDeflateServerExtensionHandshaker(
+                compressionProperties.getLevel(),
+                compressionProperties.isAllowServerWindowSize(),
+                compressionProperties.getPreferredClientWindowSize(),
+                compressionProperties.isAllowServerNoContextTakeover(),
+                compressionProperties.isPreferClientNoContextTakeover(),
+                filterProvider,
+                compressionProperties.getMaxAllocation()
+        );
+    }
+
+    private void scheduleCompressionStatsLog() {
+        int interval = compressionProperties.getStatsLogIntervalSeconds();
+        if (interval > 0) {
+            bossGroup.scheduleAtFixedRate(compressionMetrics::logAndReset, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    private void scheduleMailboxStatsLog() {
+        if (mailboxStatsLogIntervalSeconds > 0) {
+            bossGroup.scheduleAtFixedRate(mailboxMetrics::logAndReset,
+                    mailboxStatsLogIntervalSeconds, mailboxStatsLogIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
     /**
      * 停止 Netty 服务器
      */
@@ -134,9 +319,10 @@ public class NettyServer {
         log.info("Shutting down Netty WebSocket server...");
 
         try {
-            if (serverChannel != null) {
+            for (Channel serverChannel : serverChannels) {
                 serverChannel.close().syncUninterruptibly();
             }
+            serverChannels.clear();
         } finally {
             if (workerGroup != null) {
                 workerGroup.shutdownGracefully().syncUninterruptibly();
@@ -0,0 +1,87 @@
+package com.ecamt35.messageservice.config;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Netty 传输层实现。
+ * <p>
+ * 配置 netty.websocket.transport=auto|nio|epoll|io_uring：
+ * auto 在 Linux 且 native 库可用时选择 epoll，否则 NIO；显式指定的 native 传输不可用时同样回退 NIO。
+ * io_uring 目前不可用：classpath 上的 io_uring 传输属于 Netty 4.2 的 IoHandler 模型，
+ * 而实际生效的 netty-transport 是 4.1.x（Spring Boot 依赖管理），因此回退到 epoll/NIO。
+ */
+@Slf4j
+public enum NettyTransport {
+
+    NIO {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            return new NioEventLoopGroup(threads);
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+    },
+
+    EPOLL {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            return new EpollEventLoopGroup(threads);
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+    };
+
+    /**
+     * @param threads 0 表示使用 Netty 默认线程数（CPU 核数 * 2）
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads);
+
+    public abstract Class<? extends ServerChannel> serverChannelClass();
+
+    /**
+     * 根据配置选择实际使用的传输层
+     */
+    public static NettyTransport select(String configured) {
+        String name = configured == null ? "auto" : configured.trim().toLowerCase();
+        switch (name) {
+            case "nio":
+                return NIO;
+            case "epoll":
+                if (isEpollAvailable()) {
+                    return EPOLL;
+                }
+                log.warn("Netty transport epoll unavailable, fallback to nio, cause={}", String.valueOf(Epoll.unavailabilityCause()));
+                return NIO;
+            case "io_uring":
+                log.warn("Netty transport io_uring is not supported by the netty-transport on classpath, fallback to {}",
+                        isEpollAvailable() ? "epoll" : "nio");
+                return isEpollAvailable() ? EPOLL : NIO;
+            case "auto":
+                return isEpollAvailable() ? EPOLL : NIO;
+            default:
+                throw new IllegalArgumentException("Unknown netty.websocket.transport: " + configured);
+        }
+    }
+
+    private static boolean isEpollAvailable() {
+        try {
+            return Epoll.isAvailable();
+        } catch (Throwable t) {
+            // 非 Linux 或缺少 native 库
+            return false;
+        }
+    }
+}
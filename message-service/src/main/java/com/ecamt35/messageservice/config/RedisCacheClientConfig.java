@@ -1,11 +1,23 @@
 package com.ecamt35.messageservice.config;
 
+import com.ecamt35.messageservice.util.LocalCache;
 import com.ecamt35.messageservice.util.RedisCacheClient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 public class RedisCacheClientConfig {
@@ -19,7 +31,38 @@ public class RedisCacheClientConfig {
     public RedisCacheClient redisCacheClient(RedisTemplate<String, Object> redisTemplateObject,
                                              RedissonClient redissonClient,
                                              ObjectMapper objectMapper,
-                                             RedisCachePropertiesConfig props) {
-        return new RedisCacheClient(redisTemplateObject, redissonClient, objectMapper, props);
+                                             RedisCachePropertiesConfig props,
+                                             @Qualifier("setContainsScript") DefaultRedisScript<Long> setContainsScript,
+                                             @Qualifier("virtualExecutor") ExecutorService virtualExecutor,
+                                             ObjectProvider<LocalCache> localCache) {
+        RedisCacheClient client = new RedisCacheClient(redisTemplateObject, redissonClient, objectMapper, props,
+                setContainsScript, virtualExecutor);
+        localCache.ifAvailable(client::setLocalCache);
+        return client;
+    }
+
+    /**
+     * 进程内 L1（cache.l1.enabled=true 时启用）
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "cache.l1", name = "enabled", havingValue = "true")
+    public LocalCache localCache(LocalCacheProperties props, StringRedisTemplate stringRedisTemplate) {
+        return new LocalCache(props, stringRedisTemplate);
+    }
+
+    /**
+     * 订阅 L1 跨节点失效广播
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cache.l1", name = "enabled", havingValue = "true")
+    public RedisMessageListenerContainer localCacheInvalidationContainer(RedisConnectionFactory connectionFactory,
+                                                                         LocalCache localCache,
+                                                                         LocalCacheProperties props) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> localCache.onInvalidationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(props.getInvalidationChannel()));
+        return container;
     }
 }
@@ -26,6 +26,11 @@ public class RedisCachePropertiesConfig {
      */
     private long jitterSecondsMax = 300;
 
+    /**
+     * 逻辑过期值在逻辑过期后继续保留的时间（旧值可读、等待后台刷新）
+     */
+    private Duration logicalExpireGrace = Duration.ofMinutes(10);
+
     /**
      * 锁 key 前缀
      */
@@ -0,0 +1,34 @@
+package com.ecamt35.messageservice.config;
+
+import com.ecamt35.messageservice.constant.SeqAllocationConstant;
+import org.springframework.amqp.core.*;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SeqAllocationMQConfig {
+
+    private final SeqAllocationConstant seqAllocationConstant;
+
+    public SeqAllocationMQConfig(SeqAllocationConstant seqAllocationConstant) {
+        this.seqAllocationConstant = seqAllocationConstant;
+    }
+
+    @Bean
+    public DirectExchange seqAllocationExchange() {
+        return new DirectExchange(seqAllocationConstant.getExchange(), true, false);
+    }
+
+    @Bean
+    public Queue seqAllocationQueue() {
+        // 同步 RPC 请求，调用方超时后会重试；节点下线时队列随之删除，请求不可路由即视为失败
+        return QueueBuilder.nonDurable(seqAllocationConstant.getQueue()).autoDelete().build();
+    }
+
+    @Bean
+    public Binding seqAllocationBinding() {
+        return BindingBuilder.bind(seqAllocationQueue())
+                .to(seqAllocationExchange())
+                .with(seqAllocationConstant.getRoutingKey());
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecamt35.messageservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket permessage-deflate 压缩配置。
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "netty.websocket.compression")
+public class WebSocketCompressionProperties {
+
+    /**
+     * 是否允许协商 permessage-deflate（客户端未请求时不生效）。
+     */
+    private boolean enabled = false;
+
+    /**
+     * 压缩级别 0-9，越大越省带宽、越费 CPU。
+     */
+    private int level = 6;
+
+    /**
+     * 下行帧压缩阈值（字节），小于该值的帧不压缩。
+     */
+    private int minFrameSize = 1024;
+
+    /**
+     * 是否接受客户端请求的 server_no_context_takeover。
+     * 接受后服务端每条消息重置压缩字典：压缩率下降，但连接间不长期持有压缩上下文。
+     */
+    private boolean allowServerNoContextTakeover = true;
+
+    /**
+     * 是否要求客户端 client_no_context_takeover。
+     */
+    private boolean preferClientNoContextTakeover = false;
+
+    /**
+     * 是否接受客户端请求的 server_max_window_bits。
+     */
+    private boolean allowServerWindowSize = true;
+
+    /**
+     * 期望客户端使用的 client_max_window_bits（8-15）。
+     */
+    private int preferredClientWindowSize = 15;
+
+    /**
+     * 上行消息解压后的最大字节数，超出时关闭连接，0 不限制。
+     */
+    private int maxAllocation = 0;
+
+    /**
+     * 压缩统计日志间隔（秒），<=0 关闭。
+     */
+    private int statsLogIntervalSeconds = 60;
+}
@@ -1,5 +1,6 @@
 package com.ecamt35.messageservice.constant;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -8,14 +9,35 @@ import org.springframework.stereotype.Component;
 @Component
 public class MessageDispatchConstant {
 
+    /**
+     * 分发分区数：按 conversationId 一致性哈希到分区队列，分区内有序、分区间并行
+     */
+    @Value("${message.dispatch.partitions:8}")
+    private int partitions;
+
+    public int getPartitions() {
+        return Math.max(1, partitions);
+    }
+
     public String getExchange() {
         return "message-dispatch.direct";
     }
 
+    /**
+     * 未分区的旧队列，仅用于排空升级前已投递的任务
+     */
     public String getQueue() {
         return "message-dispatch.queue";
     }
 
+    public String getPartitionQueue(int partition) {
+        return "message-dispatch-" + partition + ".queue";
+    }
+
+    public String getPartitionRoutingKey(int partition) {
+        return "message-dispatch-" + partition;
+    }
+
     public String getRoutingKey() {
         return "message-dispatch";
     }
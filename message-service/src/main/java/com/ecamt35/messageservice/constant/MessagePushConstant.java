@@ -21,6 +21,17 @@ public class MessagePushConstant {
         return "websocket-message-" + nodeName;
     }
 
+    /**
+     * 群消息批量投递队列：与单条投递共用 exchange，按 routing key 区分
+     */
+    public String getWebsocketMessageBatchQueue() {
+        return "websocket-message-batch-" + nodeName + ".queue";
+    }
+
+    public String getWebsocketMessageBatchKey() {
+        return "websocket-message-batch-" + nodeName;
+    }
+
     public String getDeadWebsocketMessageExchange() {
         return "dead.websocket-message-" + nodeName + ".direct";
     }
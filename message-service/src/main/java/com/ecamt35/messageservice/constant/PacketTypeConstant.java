@@ -7,6 +7,7 @@ public class PacketTypeConstant {
     public static final int CLIENT_ACK_READ = 101;
     public static final int CLIENT_PULL_SUMMARY = 102;
     public static final int CLIENT_PULL_MESSAGES = 103;
+    public static final int CLIENT_PULL_MESSAGES_BATCH = 104;
     public static final int CLIENT_RELATION_COMMAND = 110;
 
     // to client
@@ -17,6 +18,8 @@ public class PacketTypeConstant {
     public static final int SERVER_MESSAGES = 204;
     public static final int SERVER_REGISTER_ACK = 205;
     public static final int SERVER_REGISTER_NACK = 206;
+    public static final int SERVER_CONVERSATION_HINT = 207;
+    public static final int SERVER_MESSAGES_BATCH = 208;
     public static final int SERVER_RELATION_ACK = 210;
     public static final int SERVER_RELATION_EVENT = 211;
 
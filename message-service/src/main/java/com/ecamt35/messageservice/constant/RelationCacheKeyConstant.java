@@ -4,4 +4,16 @@ public class RelationCacheKeyConstant {
     public static final String FRIEND_SET_PREFIX = "im:friend:set:";
     public static final String BLACK_SET_PREFIX = "im:black:set:";
     public static final String PRIVACY_PREFIX = "im:privacy:";
+    public static final String PAIR_PERMISSION_PREFIX = "im:perm:pair:";
+    public static final String GROUP_AUTH_PREFIX = "im:group:auth:";
+    public static final String GROUP_AUTH_VERSION_PREFIX = "im:group:auth-ver:";
+    public static final String MEMBER_SET_PREFIX = "im:members:";
+    public static final String MEMBER_VERSION_PREFIX = "im:members-ver:";
+
+    /**
+     * 私聊发送权限 key：im:perm:pair:{senderId}:{receiverId}
+     */
+    public static String pairPermissionKey(Long senderId, Long receiverId) {
+        return PAIR_PERMISSION_PREFIX + senderId + ":" + receiverId;
+    }
 }
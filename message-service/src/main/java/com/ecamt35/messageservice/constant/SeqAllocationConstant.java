@@ -0,0 +1,31 @@
+package com.ecamt35.messageservice.constant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 会话 seq 分配转发（owner 模式下非 owner 节点向 owner 请求 seq）的 RPC 队列常量。
+ */
+@Component
+public class SeqAllocationConstant {
+
+    @Value("${node-name}")
+    private String nodeName;
+
+    public String getExchange() {
+        // 所有节点共享同一 direct 交换机，按目标节点 routing key 投递
+        return "seq-alloc.direct";
+    }
+
+    public String getQueue() {
+        return "seq-alloc-" + nodeName + ".queue";
+    }
+
+    public String getRoutingKey() {
+        return getRoutingKey(nodeName);
+    }
+
+    public String getRoutingKey(String node) {
+        return "seq-alloc-" + node;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecamt35.messageservice.listener;
+
+import com.ecamt35.messageservice.constant.MessageDispatchConstant;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分发分区延迟统计：
+ * - 本节点消费数、端到端延迟（消费时刻 - 消息 sendTime）的均值与最大值，区间统计
+ * - 分区队列积压（队列当前消息数，来自 broker）
+ * 按 message.dispatch.lag-log-interval-seconds 周期输出日志。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DispatchPartitionMetrics {
+
+    private final MessageDispatchConstant messageDispatchConstant;
+    private final AmqpAdmin amqpAdmin;
+
+    @Value("${message.dispatch.lag-log-interval-seconds:60}")
+    private int logIntervalSeconds;
+
+    private LongAdder[] consumed;
+    private LongAdder[] totalLagMillis;
+    private AtomicLong[] maxLagMillis;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        int n = messageDispatchConstant.getPartitions();
+        consumed = new LongAdder[n];
+        totalLagMillis = new LongAdder[n];
+        maxLagMillis = new AtomicLong[n];
+        for (int i = 0; i < n; i++) {
+            consumed[i] = new LongAdder();
+            totalLagMillis[i] = new LongAdder();
+            maxLagMillis[i] = new AtomicLong();
+        }
+        if (logIntervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("dispatch-lag", true));
+            scheduler.scheduleAtFixedRate(this::logAndReset, logIntervalSeconds, logIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 记录一次分区消费
+     *
+     * @param sendTime 消息发送时间（毫秒），为空时只计数
+     */
+    public void record(int partition, Long sendTime) {
+        consumed[partition].increment();
+        if (sendTime != null) {
+            long lag = Math.max(0, System.currentTimeMillis() - sendTime);
+            totalLagMillis[partition].add(lag);
+            maxLagMillis[partition].accumulateAndGet(lag, Math::max);
+        }
+    }
+
+    /**
+     * 分区队列当前积压，查询失败返回 -1
+     */
+    public long getBacklog(int partition) {
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(messageDispatchConstant.getPartitionQueue(partition));
+            return info == null ? -1 : info.getMessageCount();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 输出统计并清零（区间统计）
+     */
+    public void logAndReset() {
+        for (int i = 0; i < consumed.length; i++) {
+            long n = consumed[i].sumThenReset();
+            long lag = totalLagMillis[i].sumThenReset();
+            long max = maxLagMillis[i].getAndSet(0);
+            long backlog = getBacklog(i);
+            if (n == 0 && backlog <= 0) {
+                continue;
+            }
+            log.info("Message dispatch partition stats: partition={}, consumed={}, avgLagMs={}, maxLagMs={}, backlog={}",
+                    i, n, n == 0 ? 0 : lag / n, max, backlog);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
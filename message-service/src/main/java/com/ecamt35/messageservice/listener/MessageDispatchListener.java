@@ -1,22 +1,72 @@
 package com.ecamt35.messageservice.listener;
 
+import com.ecamt35.messageservice.constant.MessageDispatchConstant;
 import com.ecamt35.messageservice.model.bo.MessageDispatchBo;
 import com.ecamt35.messageservice.service.MessageDispatchService;
-import lombok.RequiredArgsConstructor;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
 /**
  * 消息分发任务消费者。
+ * <p>
+ * 每个分区队列注册独立的监听容器（单消费者），分区内按投递顺序串行处理，分区间并行；
+ * 未分区的旧队列保留监听，只用于排空升级前已投递的任务。
  */
 @Component
-@RequiredArgsConstructor
-public class MessageDispatchListener {
+public class MessageDispatchListener implements RabbitListenerConfigurer {
+
+    private static final ParameterizedTypeReference<MessageDispatchBo> DISPATCH_TYPE = new ParameterizedTypeReference<>() {
+    };
 
     private final MessageDispatchService messageDispatchService;
+    private final MessageDispatchConstant messageDispatchConstant;
+    private final DispatchPartitionMetrics dispatchPartitionMetrics;
+    private final SimpleRabbitListenerContainerFactory messageDispatchContainerFactory;
+    private final MessageConverter messageConverter;
+
+    public MessageDispatchListener(MessageDispatchService messageDispatchService,
+                                   MessageDispatchConstant messageDispatchConstant,
+                                   DispatchPartitionMetrics dispatchPartitionMetrics,
+                                   @Qualifier("messageDispatchContainerFactory")
+                                   SimpleRabbitListenerContainerFactory messageDispatchContainerFactory,
+                                   MessageConverter messageConverter) {
+        this.messageDispatchService = messageDispatchService;
+        this.messageDispatchConstant = messageDispatchConstant;
+        this.dispatchPartitionMetrics = dispatchPartitionMetrics;
+        this.messageDispatchContainerFactory = messageDispatchContainerFactory;
+        this.messageConverter = messageConverter;
+    }
 
     @RabbitListener(queues = "#{messageDispatchConstant.getQueue()}")
     public void handleDispatch(MessageDispatchBo dispatchBo) {
         messageDispatchService.handleDispatch(dispatchBo);
     }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (int i = 0; i < messageDispatchConstant.getPartitions(); i++) {
+            final int partition = i;
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("message-dispatch-partition-" + partition);
+            endpoint.setQueueNames(messageDispatchConstant.getPartitionQueue(partition));
+            endpoint.setMessageListener(message -> {
+                // 与发布端共用同一个 messageConverter bean
+                Object body = messageConverter instanceof SmartMessageConverter smart
+                        ? smart.fromMessage(message, DISPATCH_TYPE)
+                        : messageConverter.fromMessage(message);
+                MessageDispatchBo dispatchBo = (MessageDispatchBo) body;
+                messageDispatchService.handleDispatch(dispatchBo);
+                dispatchPartitionMetrics.record(partition, dispatchBo == null ? null : dispatchBo.getSendTime());
+            });
+            registrar.registerEndpoint(endpoint, messageDispatchContainerFactory);
+        }
+    }
 }
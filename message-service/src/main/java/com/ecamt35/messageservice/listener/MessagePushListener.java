@@ -1,5 +1,6 @@
 package com.ecamt35.messageservice.listener;
 
+import com.ecamt35.messageservice.model.bo.MessageBatchPushBo;
 import com.ecamt35.messageservice.model.bo.SendMessageBo;
 import com.ecamt35.messageservice.service.DeliveryService;
 import jakarta.annotation.Resource;
@@ -19,4 +20,9 @@ public class MessagePushListener {
         deliveryService.deliverToUserDevices(sendMessageBo);
     }
 
+    @RabbitListener(queues = "#{messagePushConstant.getWebsocketMessageBatchQueue()}")
+    public void pushMessageBatchOnline(MessageBatchPushBo batchPushBo) {
+        deliveryService.deliverBatchLocally(batchPushBo);
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.ecamt35.messageservice.listener;
+
+import com.ecamt35.messageservice.service.ConversationSequencer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 会话 seq 分配 RPC 消费者（owner 模式）：返回值作为 reply 回给请求节点。
+ */
+@Slf4j
+@Component
+public class SeqAllocationListener {
+
+    @Resource
+    private ConversationSequencer conversationSequencer;
+
+    @RabbitListener(queues = "#{seqAllocationConstant.getQueue()}",
+            autoStartup = "${message.seq.owner.enabled:false}",
+            concurrency = "${message.seq.owner.rpc-concurrency:4}")
+    public Long allocate(Long convId) {
+        try {
+            return conversationSequencer.issueLocal(convId);
+        } catch (Exception e) {
+            // 租约被其他节点持有等情况，返回 -1 由请求方报错重试
+            log.warn("Seq allocation failed, convId={}, reason={}", convId, e.getMessage());
+            return -1L;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ecamt35.messageservice.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.ecamt35.messageservice.model.bo.ReadCursorBo;
 import com.ecamt35.messageservice.model.entity.ConversationMember;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -89,4 +90,9 @@ public interface ConversationMemberMapper extends BaseMapper<ConversationMember>
      * 批量查询用户在多个会话中的已读游标，减少 SUMMARY 场景逐会话查询压力。
      */
     List<Map<String, Object>> batchFindReadSeqByUserAndConvIds(@Param("userId") Long userId, @Param("convIds") List<Long> convIds);
+
+    /**
+     * 批量推进已读游标（greatest，只增不减），供已读游标 write-behind 合并落库。
+     */
+    int batchAdvanceReadCursor(@Param("cursors") List<ReadCursorBo> cursors);
 }
@@ -1,6 +1,7 @@
 package com.ecamt35.messageservice.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.ecamt35.messageservice.model.bo.SeqRangeBo;
 import com.ecamt35.messageservice.model.entity.Message;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -50,4 +51,14 @@ public interface MessageMapper extends BaseMapper<Message> {
      * 批量查询会话的最大 seq，减少 SUMMARY 场景逐会话查询压力。
      */
     List<Map<String, Object>> batchFindMaxSeqByConvIds(@Param("convIds") List<Long> convIds);
+
+    /**
+     * 多会话按 seq 区间拉取（每个区间一个带 limit 的子查询，union all 合并为一条 SQL）。
+     */
+    List<Message> listBySeqRanges(@Param("ranges") List<SeqRangeBo> ranges);
+
+    /**
+     * 多行插入消息（组提交），任一行唯一键冲突整条失败。
+     */
+    int batchInsert(@Param("messages") List<Message> messages);
 }
@@ -0,0 +1,18 @@
+package com.ecamt35.messageservice.model.bo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 设备在线路由（ws:online:{userId}:{deviceId}）。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceRouteBo {
+    private Long userId;
+    private String deviceId;
+    private String node;
+    private String sessionId;
+}
@@ -0,0 +1,20 @@
+package com.ecamt35.messageservice.model.bo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 群消息跨节点批量投递信封：同一条消息发往同一节点的所有设备合并为一次 MQ 发布。
+ * hintOnly=true 时只投递会话提示（message 中仅 conversationId/seq 有效）。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessageBatchPushBo {
+    private MessageDispatchBo message;
+    private List<DeviceRouteBo> targets;
+    private Boolean hintOnly;
+}
@@ -0,0 +1,27 @@
+package com.ecamt35.messageservice.model.bo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 私聊发送权限快照（senderId -> receiverId）。
+ * 陌生人开关不进快照，非好友时按接收方隐私设置实时判断。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PairPermissionBo {
+    /**
+     * 私聊会话ID（双方成员均已确认 active），未允许发送时为空
+     */
+    private Long conversationId;
+    /**
+     * 接收方是否拉黑发送方
+     */
+    private Boolean blocked;
+    /**
+     * 是否双向好友
+     */
+    private Boolean mutualFriend;
+}
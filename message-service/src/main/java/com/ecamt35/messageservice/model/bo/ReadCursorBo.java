@@ -0,0 +1,17 @@
+package com.ecamt35.messageservice.model.bo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 待落库的已读游标（同一 userId+convId 只保留最大 readSeq）。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadCursorBo {
+    private Long userId;
+    private Long convId;
+    private Long readSeq;
+}
@@ -0,0 +1,18 @@
+package com.ecamt35.messageservice.model.bo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个会话的拉取区间 (afterSeq, upperBoundSeq]，最多 limit 条。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeqRangeBo {
+    private Long convId;
+    private Long afterSeq;
+    private Long upperBoundSeq;
+    private Integer limit;
+}
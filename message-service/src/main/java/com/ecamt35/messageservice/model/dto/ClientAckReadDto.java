@@ -0,0 +1,7 @@
+package com.ecamt35.messageservice.model.dto;
+
+/**
+ * CLIENT_ACK_READ 载荷
+ */
+public record ClientAckReadDto(Long conversationId, Long readSeq) {
+}
@@ -0,0 +1,9 @@
+package com.ecamt35.messageservice.model.dto;
+
+import java.util.List;
+
+/**
+ * CLIENT_PULL_MESSAGES_BATCH 载荷：多个会话的拉取请求（每项同 CLIENT_PULL_MESSAGES）
+ */
+public record ClientPullMessagesBatchDto(List<ClientPullMessagesDto> pulls) {
+}
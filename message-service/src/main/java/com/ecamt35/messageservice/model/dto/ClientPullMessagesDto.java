@@ -0,0 +1,10 @@
+package com.ecamt35.messageservice.model.dto;
+
+/**
+ * CLIENT_PULL_MESSAGES 载荷
+ *
+ * @param afterSeq      客户端本地已同步到的游标（不含），与 readSeq 无关
+ * @param upperBoundSeq 客户端把 upperBoundSeq 设置为服务端上一次返回的值
+ */
+public record ClientPullMessagesDto(Long conversationId, Long afterSeq, Integer limit, Long upperBoundSeq) {
+}
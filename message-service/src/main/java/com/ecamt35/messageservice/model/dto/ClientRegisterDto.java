@@ -0,0 +1,7 @@
+package com.ecamt35.messageservice.model.dto;
+
+/**
+ * 登录注册（WebSocket 首包）载荷
+ */
+public record ClientRegisterDto(String requestId, Long userId, String deviceId) {
+}
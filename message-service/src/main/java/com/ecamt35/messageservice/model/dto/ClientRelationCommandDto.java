@@ -0,0 +1,9 @@
+package com.ecamt35.messageservice.model.dto;
+
+/**
+ * CLIENT_RELATION_COMMAND 载荷
+ *
+ * @param payload 操作参数，必须是 JSON 对象（绑定为 Map），其他类型由 handler 拒绝
+ */
+public record ClientRelationCommandDto(String requestId, String op, Object payload) {
+}
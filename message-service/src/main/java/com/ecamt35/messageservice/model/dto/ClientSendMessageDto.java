@@ -0,0 +1,16 @@
+package com.ecamt35.messageservice.model.dto;
+
+/**
+ * CLIENT_REQUEST_SENT 载荷
+ *
+ * @param chatType       0=private,1=group
+ * @param receiverId     private 需要
+ * @param conversationId group 需要
+ */
+public record ClientSendMessageDto(String content,
+                                   Long clientMsgId,
+                                   Integer chatType,
+                                   Integer msgType,
+                                   Long receiverId,
+                                   Long conversationId) {
+}
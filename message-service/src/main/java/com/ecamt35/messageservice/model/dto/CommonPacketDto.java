@@ -1,11 +1,16 @@
 package com.ecamt35.messageservice.model.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
-import java.util.Map;
-
+/**
+ * 上行报文通用格式，data 按 packetType 绑定为对应 PacketHandler 声明的载荷类型
+ */
 @Data
-public class CommonPacketDto {
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommonPacketDto<T> {
     private Integer packetType;
-    private Map<String, Object> data;
+    private T data;
 }
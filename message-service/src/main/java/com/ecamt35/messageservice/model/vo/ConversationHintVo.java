@@ -0,0 +1,16 @@
+package com.ecamt35.messageservice.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话新消息提示：只告知会话最新 seq，客户端按需 CLIENT_PULL_MESSAGES 拉取。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConversationHintVo {
+    private Long conversationId;
+    private Long lastSeq;
+}
@@ -0,0 +1,14 @@
+package com.ecamt35.messageservice.model.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PullMessagesBatchRespVo {
+
+    // 各会话的消息页，顺序同请求（重复的 conversationId 只保留第一项）
+    private List<PullMessagesRespVo> pages;
+    // 不存在或无权限的会话
+    private List<Long> deniedConversationIds;
+}
@@ -47,6 +47,7 @@ public class BlacklistRelationService {
         friendLinkMapper.removeActive(targetId, userId);
         evictCacheKeyAfterCommit(friendSetKey(userId));
         evictCacheKeyAfterCommit(friendSetKey(targetId));
+        evictPairPermissionAfterCommit(userId, targetId);
 
         relationEventPublisher.emitEvent(Set.of(targetId), "BLACKLIST_ADDED", Map.of(
                 "userId", userId,
@@ -64,6 +65,7 @@ public class BlacklistRelationService {
         Long targetId = requireLong(payload, "targetUserId");
         blacklistEdgeMapper.removeActive(userId, targetId);
         evictCacheKeyAfterCommit(blackSetKey(userId));
+        evictPairPermissionAfterCommit(userId, targetId);
         return Map.of("removed", true);
     }
 
@@ -82,8 +84,13 @@ public class BlacklistRelationService {
         if (ownerId == null || targetId == null) {
             return false;
         }
-        Set<Long> blocked = listBlackTargetIds(ownerId);
-        return blocked.contains(targetId);
+        return cacheClient.containsOrLoad(
+                blackSetKey(ownerId),
+                targetId,
+                BLACK_SET_TTL,
+                Long.class,
+                () -> blacklistEdgeMapper.listActiveTargetIds(ownerId)
+        );
     }
 
     /**
@@ -121,6 +128,14 @@ public class BlacklistRelationService {
         evictCacheKeyAfterCommit(blackSetKey(userId));
     }
 
+    /**
+     * 在事务提交后失效双向私聊发送权限快照。
+     */
+    private void evictPairPermissionAfterCommit(Long userId, Long targetId) {
+        evictCacheKeyAfterCommit(RelationCacheKeyConstant.pairPermissionKey(userId, targetId));
+        evictCacheKeyAfterCommit(RelationCacheKeyConstant.pairPermissionKey(targetId, userId));
+    }
+
     private void upsertBlackEdge(Long userId, Long targetId) {
         BlacklistEdge any = blacklistEdgeMapper.findAny(userId, targetId);
         if (any == null) {
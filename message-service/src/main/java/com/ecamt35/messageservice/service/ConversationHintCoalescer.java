@@ -0,0 +1,142 @@
+package com.ecamt35.messageservice.service;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大群会话提示合并：
+ * 同一会话在合并窗口内的多条新消息只推一次 SERVER_CONVERSATION_HINT（取窗口内最大 seq），
+ * 窗口从该会话第一条待推提示开始计时，到期后在虚拟线程上投递。
+ */
+@Slf4j
+@Component
+public class ConversationHintCoalescer {
+
+    private static final class PendingHint {
+        private long lastSeq;
+        private List<Long> memberIds;
+        private int merged;
+    }
+
+    private final ConcurrentMap<Long, PendingHint> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+
+    private HashedWheelTimer timer;
+
+    @Resource
+    private DeliveryService deliveryService;
+    @Resource(name = "virtualExecutor")
+    private ExecutorService virtualExecutor;
+
+    @Value("${message.dispatch.hint-coalesce-millis:200}")
+    private long coalesceMillis;
+
+    @PostConstruct
+    public void init() {
+        timer = new HashedWheelTimer(new DefaultThreadFactory("conversation-hint", true),
+                Math.max(10, Math.min(100, coalesceMillis)), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一条会话提示，窗口内同会话合并
+     *
+     * @param memberIds 接收成员（取窗口内最后一次提交的成员列表）
+     */
+    public void submit(Long conversationId, Long seq, List<Long> memberIds) {
+        if (conversationId == null || seq == null || memberIds == null || memberIds.isEmpty()) {
+            return;
+        }
+        submitted.increment();
+        if (coalesceMillis <= 0) {
+            deliveryService.deliverHintToMembers(conversationId, seq, memberIds);
+            return;
+        }
+
+        boolean[] first = new boolean[1];
+        pending.compute(conversationId, (k, p) -> {
+            if (p == null) {
+                p = new PendingHint();
+                first[0] = true;
+            }
+            p.lastSeq = Math.max(p.lastSeq, seq);
+            p.memberIds = memberIds;
+            p.merged++;
+            return p;
+        });
+        if (first[0]) {
+            try {
+                timer.newTimeout(t -> flush(conversationId), coalesceMillis, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                // 时间轮已停止（应用停机），直接投递
+                flushNow(conversationId);
+            }
+        }
+    }
+
+    private void flush(Long conversationId) {
+        try {
+            virtualExecutor.execute(() -> flushNow(conversationId));
+        } catch (RejectedExecutionException e) {
+            pending.remove(conversationId);
+        }
+    }
+
+    private void flushNow(Long conversationId) {
+        PendingHint p = pending.remove(conversationId);
+        if (p == null) {
+            return;
+        }
+        flushed.increment();
+        try {
+            deliveryService.deliverHintToMembers(conversationId, p.lastSeq, p.memberIds);
+        } catch (Exception e) {
+            log.error("Deliver conversation hint failed, conversationId={}, lastSeq={}, merged={}",
+                    conversationId, p.lastSeq, p.merged, e);
+        }
+    }
+
+    /**
+     * 已提交的提示数
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * 实际推送的提示数（submitted / flushed 即合并倍率）
+     */
+    public long getFlushed() {
+        return flushed.sum();
+    }
+
+    /**
+     * 停机：停止时间轮，把窗口内待推的提示直接投递
+     */
+    @PreDestroy
+    public void destroy() {
+        if (timer != null) {
+            timer.stop();
+        }
+        for (Long conversationId : new ArrayList<>(pending.keySet())) {
+            flushNow(conversationId);
+        }
+        log.info("Conversation hint coalescer stopped, submitted={}, flushed={}", getSubmitted(), getFlushed());
+    }
+}
@@ -0,0 +1,201 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.constant.RelationCacheKeyConstant;
+import com.ecamt35.messageservice.mapper.ConversationMemberMapper;
+import com.ecamt35.messageservice.model.entity.ConversationMember;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话成员列表缓存（分发与关系事件用）：
+ * 1) Redis：Set im:members:{convId}（userId，空列表以 "-" 占位）+ 版本 im:members-ver:{convId}
+ * 2) 本地：convId -> (版本, 有序 long[])，读取时 GET 版本一致即直接复用，不查库、不拉取整个集合
+ * 3) 入群/退群/踢人/解散在事务提交后以 SADD/SREM/清空 增量更新集合并递增版本，不整表重载
+ * <p>
+ * 回源写入以回源前的版本做 fencing：回源期间发生过成员变更则放弃写入，下次读取重新回源。
+ * Redis 不可用时直接查库。
+ */
+@Slf4j
+@Service
+public class ConversationMemberCache {
+
+    private static final String EMPTY_MEMBER = "-";
+
+    private final ConcurrentMap<Long, LocalMembers> local = new ConcurrentHashMap<>();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private ConversationMemberMapper memberMapper;
+    @Resource(name = "memberListGetScript")
+    private DefaultRedisScript<List> memberListGetScript;
+    @Resource(name = "memberListFillScript")
+    private DefaultRedisScript<Long> memberListFillScript;
+    @Resource(name = "memberListUpdateScript")
+    private DefaultRedisScript<Long> memberListUpdateScript;
+
+    // Redis 成员集合与版本 key 的 TTL（秒），每次增量更新/回源写入时续期
+    @Value("${message.member-cache.ttl-seconds:604800}")
+    private long ttlSeconds;
+    // 本地 long[] 条目上限，<=0 关闭本地层（每次读取拉取 Redis 集合）
+    @Value("${message.member-cache.local-max-size:10000}")
+    private int localMaxSize;
+    // 本地条目存活时间（秒），兜底 Redis key 过期后版本号从头计数与旧条目碰撞的情况
+    @Value("${message.member-cache.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    /**
+     * 查询会话 active 成员 userId（升序）。
+     * <p>
+     * 返回数组可能被多个调用方共享，调用方不得修改。
+     */
+    public long[] getMemberIds(Long convId) {
+        String setKey = RelationCacheKeyConstant.MEMBER_SET_PREFIX + convId;
+        String verKey = RelationCacheKeyConstant.MEMBER_VERSION_PREFIX + convId;
+        try {
+            LocalMembers cached = localMaxSize > 0 ? local.get(convId) : null;
+            if (cached != null && System.nanoTime() - cached.expireAtNanos() < 0) {
+                String ver = stringRedisTemplate.opsForValue().get(verKey);
+                if (cached.version() == (ver == null ? 0L : Long.parseLong(ver))) {
+                    return cached.members();
+                }
+            }
+
+            List<?> res = stringRedisTemplate.execute(memberListGetScript, List.of(setKey, verKey));
+            if (res == null || res.size() < 2) {
+                return loadFromDb(convId);
+            }
+            long version = Long.parseLong(String.valueOf(res.get(0)));
+            if ("1".equals(String.valueOf(res.get(1)))) {
+                long[] members = new long[res.size() - 2];
+                for (int i = 2; i < res.size(); i++) {
+                    members[i - 2] = Long.parseLong(String.valueOf(res.get(i)));
+                }
+                Arrays.sort(members);
+                putLocal(convId, version, members);
+                return members;
+            }
+
+            // 未缓存：回源并以本次读到的版本 fencing 写入
+            long[] members = loadFromDb(convId);
+            List<String> args = new ArrayList<>(members.length + 2);
+            args.add(String.valueOf(version));
+            args.add(String.valueOf(ttlSeconds));
+            for (long m : members) {
+                args.add(String.valueOf(m));
+            }
+            Long written = stringRedisTemplate.execute(memberListFillScript, List.of(setKey, verKey), args.toArray());
+            if (written != null && written >= 0) {
+                putLocal(convId, written, members);
+            }
+            return members;
+        } catch (Exception e) {
+            log.warn("Member list cache unavailable, fallback to db, convId={}, err={}", convId, e.getMessage());
+            return loadFromDb(convId);
+        }
+    }
+
+    /**
+     * 成员加入/恢复（事务提交后生效）
+     */
+    public void memberAddedAfterCommit(Long convId, Long userId) {
+        afterCommit(convId, "add", userId);
+    }
+
+    /**
+     * 成员退出/被移除（事务提交后生效）
+     */
+    public void memberRemovedAfterCommit(Long convId, Long userId) {
+        afterCommit(convId, "rem", userId);
+    }
+
+    /**
+     * 会话全部成员移除，如解散群（事务提交后生效）
+     */
+    public void clearAfterCommit(Long convId) {
+        afterCommit(convId, "clear", null);
+    }
+
+    private void afterCommit(Long convId, String op, Long userId) {
+        if (convId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update(convId, op, userId);
+                }
+            });
+            return;
+        }
+        update(convId, op, userId);
+    }
+
+    private void update(Long convId, String op, Long userId) {
+        local.remove(convId);
+        try {
+            stringRedisTemplate.execute(memberListUpdateScript,
+                    List.of(RelationCacheKeyConstant.MEMBER_SET_PREFIX + convId,
+                            RelationCacheKeyConstant.MEMBER_VERSION_PREFIX + convId),
+                    op, userId == null ? "" : String.valueOf(userId), String.valueOf(ttlSeconds));
+        } catch (Exception e) {
+            // 增量更新失败则删除集合，下次读取回源
+            log.warn("Update member list cache failed, convId={}, op={}, userId={}, err={}", convId, op, userId, e.getMessage());
+            try {
+                stringRedisTemplate.delete(RelationCacheKeyConstant.MEMBER_SET_PREFIX + convId);
+            } catch (Exception ex) {
+                log.error("Evict member list cache failed, convId={}, err={}", convId, ex.getMessage());
+            }
+        }
+    }
+
+    private void putLocal(Long convId, long version, long[] members) {
+        if (localMaxSize <= 0) {
+            return;
+        }
+        if (local.size() >= localMaxSize) {
+            // 超出上限时随机淘汰一个条目（ConcurrentHashMap 迭代顺序无关插入顺序）
+            Iterator<Long> it = local.keySet().iterator();
+            if (it.hasNext()) {
+                local.remove(it.next());
+            }
+        }
+        local.put(convId, new LocalMembers(version, members,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(localTtlSeconds)));
+    }
+
+    private long[] loadFromDb(Long convId) {
+        List<ConversationMember> rows = memberMapper.listActiveMembers(convId);
+        if (rows == null || rows.isEmpty()) {
+            return new long[0];
+        }
+        long[] members = new long[rows.size()];
+        int n = 0;
+        for (ConversationMember m : rows) {
+            if (m.getUserId() != null) {
+                members[n++] = m.getUserId();
+            }
+        }
+        members = n == members.length ? members : Arrays.copyOf(members, n);
+        Arrays.sort(members);
+        return members;
+    }
+
+    private record LocalMembers(long version, long[] members, long expireAtNanos) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.util.ConsistentHash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 会话 owner 路由：在 Nacos 健康实例（metadata.nodeName）上做 Rendezvous 哈希，为会话选出 seq owner 节点。
+ * 实例列表未知（Nacos 未启用/尚未订阅到）时视为单节点，本节点即 owner。
+ * <p>
+ * 路由只决定亲和性，seq 唯一性由 ConversationSequencer 的 fenced 租约保证，成员变化期间两节点同时认为自己是 owner 也不会重复发号。
+ */
+@Slf4j
+@Component
+public class ConversationOwnerRouter {
+
+    @Resource
+    private NacosManualRegistrationService nacosManualRegistrationService;
+
+    @Value("${node-name}")
+    private String nodeName;
+
+    private volatile List<String> nodes = List.of();
+
+    @PostConstruct
+    public void init() {
+        nacosManualRegistrationService.addNodeListener(this::updateNodes);
+    }
+
+    private void updateNodes(List<String> latest) {
+        List<String> sorted = new ArrayList<>(latest);
+        sorted.sort(null);
+        if (!sorted.equals(nodes)) {
+            log.info("Conversation owner nodes changed, before={}, after={}", nodes, sorted);
+        }
+        nodes = List.copyOf(sorted);
+    }
+
+    /**
+     * 会话 owner 节点名
+     */
+    public String ownerOf(Long convId) {
+        List<String> current = nodes;
+        if (current.isEmpty()) {
+            return nodeName;
+        }
+        String owner = ConsistentHash.rendezvous(convId, current);
+        return owner == null ? nodeName : owner;
+    }
+
+    public boolean isLocalOwner(Long convId) {
+        return nodeName.equals(ownerOf(convId));
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+}
@@ -0,0 +1,388 @@
+package com.ecamt35.messageservice.service;
+
+import cn.hutool.core.lang.Snowflake;
+import com.ecamt35.messageservice.constant.SeqAllocationConstant;
+import com.ecamt35.messageservice.mapper.MessageMapper;
+import com.ecamt35.messageservice.util.BusinessException;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话 seq 分配入口。
+ * <p>
+ * 默认（message.seq.owner.enabled=false）每次一次 Redis EVAL INCR lastSeq，key 缺失时走 CursorService.nextSeq 的 DB 兜底。
+ * 开启 owner 模式后：
+ * - 会话按 ConversationOwnerRouter 归属到 owner 节点，非 owner 节点通过 RabbitMQ RPC 向 owner 请求 seq
+ * - owner 持有 fenced 租约（im:seq:lease:{convId} = node:epoch），从 Redis 号段上界 im:seq:hi:{convId} 一次预留 block-size 个 seq，
+ * 在内存中逐个发放；租约丢失后本地号段立即作废，新 owner 从 hi 之上预留，故障切换不会重复发号
+ * - 发号路径不写 lastSeq：周期 checkpoint 续租并把已发放的最大 seq 只增写入 im:conv:last_seq:{convId}，
+ * lastSeq 最多滞后一个 checkpoint 周期，拉取以客户端 upperBoundSeq / 推送与提示携带的 seq / DB max(seq) 修正兜底
+ * - 关闭 owner 模式后先把 lastSeq 抬到残留的 hi 之上再 INCR（owner 崩溃时未 checkpoint 的 seq 不会被重复分配）；
+ * 重新开启时预留从 max(hi, lastSeq) 续接
+ * - 会话不再归属本节点、空闲超时或停机时释放租约，并把未发放的号段归还，下一任 owner 续接不留空洞；
+ * 崩溃时未发放的号段会成为 seq 空洞（不重复）
+ */
+@Slf4j
+@Service
+public class ConversationSequencer {
+
+    private static final String LEASE_KEY_PREFIX = "im:seq:lease:";
+    private static final String HI_KEY_PREFIX = "im:seq:hi:";
+    private static final ParameterizedTypeReference<Long> LONG_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    /**
+     * 单会话的本地号段状态，所有字段在 lock 内读写
+     */
+    private static final class SeqBlock {
+        private final ReentrantLock lock = new ReentrantLock();
+        // null 表示未持有租约
+        private String fence;
+        // 当前号段 [next, end]
+        private long next;
+        private long end;
+        // 本租约下已发放的最大 seq、已 checkpoint 的 seq
+        private long lastIssued;
+        private long checkpointed;
+        // 本租约下首个号段的起点 - 1，释放时 hi 最多归还到这里
+        private long base;
+        private long leaseDeadlineNanos;
+        private long lastUsedNanos = System.nanoTime();
+        // 已从 map 移除，持有引用的线程需重新获取
+        private boolean retired;
+    }
+
+    private final ConcurrentMap<Long, SeqBlock> blocks = new ConcurrentHashMap<>();
+
+    @Resource
+    private CursorService cursorService;
+    @Resource
+    private ConversationOwnerRouter conversationOwnerRouter;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private MessageMapper messageMapper;
+    @Resource
+    private RabbitTemplate rabbitTemplate;
+    @Resource
+    private SeqAllocationConstant seqAllocationConstant;
+    @Resource
+    private Snowflake snowflake;
+    @Resource
+    private DefaultRedisScript<List> seqLeaseReserveScript;
+    @Resource
+    private DefaultRedisScript<Long> seqLeaseRenewScript;
+    @Resource
+    private DefaultRedisScript<Long> seqLeaseReleaseScript;
+    @Resource
+    private DefaultRedisScript<Long> seqIncrAboveHiScript;
+
+    @Value("${message.seq.owner.enabled:false}")
+    private boolean ownerEnabled;
+    @Value("${message.seq.owner.block-size:100}")
+    private int blockSize;
+    @Value("${message.seq.owner.lease-ttl-millis:10000}")
+    private long leaseTtlMillis;
+    @Value("${message.seq.owner.checkpoint-millis:100}")
+    private long checkpointMillis;
+    @Value("${message.seq.owner.idle-release-seconds:300}")
+    private long idleReleaseSeconds;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!ownerEnabled) {
+            return;
+        }
+        blockSize = Math.max(1, blockSize);
+        leaseTtlMillis = Math.max(1000, leaseTtlMillis);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("seq-checkpoint", true));
+        long interval = Math.max(10, checkpointMillis);
+        scheduler.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Conversation sequencer owner mode enabled, blockSize={}, leaseTtlMillis={}, checkpointMillis={}",
+                blockSize, leaseTtlMillis, interval);
+    }
+
+    /**
+     * 分配会话内递增 seq
+     */
+    public long nextSeq(Long convId) {
+        if (convId == null) {
+            throw new IllegalArgumentException("convId is null");
+        }
+        if (!ownerEnabled) {
+            return nextSeqWithoutOwner(convId);
+        }
+        String owner = conversationOwnerRouter.ownerOf(convId);
+        if (conversationOwnerRouter.getNodeName().equals(owner)) {
+            return issueLocal(convId);
+        }
+        Long remote = rabbitTemplate.convertSendAndReceiveAsType(
+                seqAllocationConstant.getExchange(),
+                seqAllocationConstant.getRoutingKey(owner),
+                convId,
+                LONG_TYPE
+        );
+        if (remote == null || remote <= 0) {
+            throw new BusinessException("Seq owner unavailable, please retry");
+        }
+        return remote;
+    }
+
+    /**
+     * owner 模式关闭：一次 EVAL 在残留 hi 之上 INCR lastSeq；lastSeq 缺失时走 CursorService.nextSeq（分布式锁 + DB 兜底）
+     */
+    private long nextSeqWithoutOwner(Long convId) {
+        Long r;
+        try {
+            r = stringRedisTemplate.execute(
+                    seqIncrAboveHiScript,
+                    List.of(cursorService.lastSeqKey(convId), HI_KEY_PREFIX + convId),
+                    CursorService.CURSOR_TTL_SECONDS
+            );
+        } catch (Exception e) {
+            r = null;
+        }
+        if (r != null && r > 0) {
+            return r;
+        }
+        return cursorService.nextSeq(convId);
+    }
+
+    /**
+     * 在本节点发放 seq（本节点为 owner 或收到转发请求时调用）
+     */
+    public long issueLocal(Long convId) {
+        if (!ownerEnabled) {
+            return nextSeqWithoutOwner(convId);
+        }
+        while (true) {
+            SeqBlock b = blocks.computeIfAbsent(convId, k -> new SeqBlock());
+            b.lock.lock();
+            try {
+                if (b.retired) {
+                    continue;
+                }
+                long now = System.nanoTime();
+                // 本地租约到期（续租失败/停顿），号段作废，避免与新 owner 交错发号
+                if (b.fence != null && now - b.leaseDeadlineNanos >= 0) {
+                    b.fence = null;
+                }
+                if (b.fence == null || b.next > b.end) {
+                    reserve(convId, b);
+                }
+                long seq = b.next++;
+                b.lastIssued = seq;
+                b.lastUsedNanos = now;
+                return seq;
+            } finally {
+                b.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 获取/续用租约并预留号段（持有 b.lock）
+     */
+    private void reserve(Long convId, SeqBlock b) {
+        boolean acquire = b.fence == null;
+        String fence = acquire ? conversationOwnerRouter.getNodeName() + ":" + snowflake.nextId() : b.fence;
+        long start = System.nanoTime();
+
+        List<?> r = execReserve(convId, fence, acquire, -1);
+        long code = toLong(r, 0);
+        if (code == -3) {
+            Long dbMax = messageMapper.findMaxSeqByConvId(convId);
+            r = execReserve(convId, fence, acquire, dbMax == null ? 0 : dbMax);
+            code = toLong(r, 0);
+        }
+        if (code == -2) {
+            // 续用的租约已过期：以新 fence 重新获取，旧号段剩余部分作废
+            b.fence = null;
+            reserve(convId, b);
+            return;
+        }
+        if (code != 1) {
+            b.fence = null;
+            throw new BusinessException("Seq lease held by another node, please retry");
+        }
+
+        long from = toLong(r, 1);
+        if (acquire) {
+            b.fence = fence;
+            b.base = from - 1;
+            b.lastIssued = 0;
+            b.checkpointed = 0;
+        }
+        b.next = from;
+        b.end = toLong(r, 2);
+        b.leaseDeadlineNanos = leaseDeadline(start);
+    }
+
+    private List<?> execReserve(Long convId, String fence, boolean acquire, long dbMax) {
+        List<?> r = stringRedisTemplate.execute(
+                seqLeaseReserveScript,
+                List.of(LEASE_KEY_PREFIX + convId, HI_KEY_PREFIX + convId, cursorService.lastSeqKey(convId)),
+                fence,
+                String.valueOf(leaseTtlMillis),
+                String.valueOf(blockSize),
+                String.valueOf(dbMax),
+                acquire ? "1" : "0",
+                CursorService.CURSOR_TTL_SECONDS
+        );
+        if (r == null || r.size() < 3) {
+            throw new BusinessException("Seq lease script returned empty result");
+        }
+        return r;
+    }
+
+    /**
+     * 本地租约截止：以发起请求的时刻为起点，并预留 1/5 TTL 的时钟误差余量，保证本地先于 Redis 认为过期
+     */
+    private long leaseDeadline(long startNanos) {
+        return startNanos + TimeUnit.MILLISECONDS.toNanos(leaseTtlMillis - leaseTtlMillis / 5);
+    }
+
+    private static long toLong(List<?> r, int i) {
+        return Long.parseLong(String.valueOf(r.get(i)));
+    }
+
+    /**
+     * 周期任务：checkpoint 已发放 seq 并续租；不再归属本节点或空闲超时的会话释放租约
+     */
+    private void checkpoint() {
+        long now = System.nanoTime();
+        long renewBefore = TimeUnit.MILLISECONDS.toNanos(leaseTtlMillis / 2);
+        long idleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, idleReleaseSeconds));
+
+        for (var e : blocks.entrySet()) {
+            Long convId = e.getKey();
+            SeqBlock b = e.getValue();
+            try {
+                boolean release = !conversationOwnerRouter.isLocalOwner(convId) || now - b.lastUsedNanos > idleNanos;
+                if (release) {
+                    retire(convId, b);
+                    continue;
+                }
+
+                String fence;
+                long lastIssued;
+                b.lock.lock();
+                try {
+                    fence = b.fence;
+                    lastIssued = b.lastIssued;
+                    boolean dirty = lastIssued > b.checkpointed;
+                    boolean renewDue = b.leaseDeadlineNanos - now < renewBefore;
+                    if (fence == null || (!dirty && !renewDue)) {
+                        continue;
+                    }
+                } finally {
+                    b.lock.unlock();
+                }
+
+                long start = System.nanoTime();
+                Long ok = stringRedisTemplate.execute(
+                        seqLeaseRenewScript,
+                        List.of(LEASE_KEY_PREFIX + convId, cursorService.lastSeqKey(convId)),
+                        fence,
+                        String.valueOf(leaseTtlMillis),
+                        String.valueOf(lastIssued),
+                        CursorService.CURSOR_TTL_SECONDS
+                );
+
+                b.lock.lock();
+                try {
+                    if (!fence.equals(b.fence)) {
+                        continue;
+                    }
+                    if (ok != null && ok == 1L) {
+                        b.checkpointed = Math.max(b.checkpointed, lastIssued);
+                        b.leaseDeadlineNanos = leaseDeadline(start);
+                    } else {
+                        log.warn("Seq lease lost, convId={}, fence={}", convId, fence);
+                        b.fence = null;
+                    }
+                } finally {
+                    b.lock.unlock();
+                }
+            } catch (Exception ex) {
+                log.warn("Seq checkpoint failed, convId={}, reason={}", convId, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 释放租约并从本地移除
+     */
+    private void retire(Long convId, SeqBlock b) {
+        String fence;
+        long lastIssued;
+        long floor;
+        b.lock.lock();
+        try {
+            if (b.retired) {
+                return;
+            }
+            b.retired = true;
+            blocks.remove(convId, b);
+            fence = b.fence;
+            lastIssued = b.lastIssued;
+            floor = Math.max(b.lastIssued, b.base);
+            b.fence = null;
+        } finally {
+            b.lock.unlock();
+        }
+        if (fence == null) {
+            return;
+        }
+        stringRedisTemplate.execute(
+                seqLeaseReleaseScript,
+                List.of(LEASE_KEY_PREFIX + convId, HI_KEY_PREFIX + convId, cursorService.lastSeqKey(convId)),
+                fence,
+                String.valueOf(lastIssued),
+                String.valueOf(floor),
+                CursorService.CURSOR_TTL_SECONDS
+        );
+    }
+
+    /**
+     * 停机：释放本节点持有的全部租约，新 owner 可立即接管
+     */
+    @PreDestroy
+    public void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        List<Long> convIds = new ArrayList<>(blocks.keySet());
+        for (Long convId : convIds) {
+            SeqBlock b = blocks.get(convId);
+            if (b == null) continue;
+            try {
+                retire(convId, b);
+            } catch (Exception ex) {
+                log.warn("Seq lease release failed, convId={}, reason={}", convId, ex.getMessage());
+            }
+        }
+        log.info("Conversation sequencer stopped, released={}", convIds.size());
+    }
+}
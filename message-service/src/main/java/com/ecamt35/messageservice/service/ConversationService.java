@@ -13,7 +13,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -22,7 +25,8 @@ public class ConversationService {
 
     private static final Duration PRIVATE_CONV_TTL = Duration.ofDays(7);
     private static final Duration USER_CONV_IDS_TTL = Duration.ofDays(7);
-    private static final Duration CONV_TTL = Duration.ofDays(7);
+    // 逻辑过期只保证热点读不击穿，到期即后台刷新；取分钟级，避免漏删时旧元数据长期生效
+    private static final Duration CONV_LOGICAL_TTL = Duration.ofMinutes(5);
 
     private final ConversationMapper conversationMapper;
     private final ConversationMemberMapper memberMapper;
@@ -31,6 +35,7 @@ public class ConversationService {
     private final BlacklistRelationService blacklistRelationService;
     private final FriendRelationService friendRelationService;
     private final PrivacyRelationService privacyRelationService;
+    private final ConversationMemberCache conversationMemberCache;
 
     /**
      * 获取或创建私聊会话
@@ -114,6 +119,7 @@ public class ConversationService {
         if (any != null && any.getDeleted() != null && any.getDeleted() == 1) {
             int restored = memberMapper.restoreDeletedById(any.getId(), 1);
             if (restored > 0) {
+                conversationMemberCache.memberAddedAfterCommit(convId, userId);
                 return true;
             }
             if (memberMapper.findActive(convId, userId) != null) {
@@ -135,6 +141,7 @@ public class ConversationService {
 
         try {
             memberMapper.insert(m);
+            conversationMemberCache.memberAddedAfterCommit(convId, userId);
             return true;
         } catch (DuplicateKeyException ignore) {
             return true;
@@ -167,18 +174,42 @@ public class ConversationService {
 
     /**
      * 查询会话（缓存优先）
+     * 群会话元数据是每条群消息的热点读，使用逻辑过期：到期后先返回旧值并由单次后台刷新替换
      */
     public Conversation selectById(long convId) {
         // key: im:conv:{convId}
-        return cacheClient.getOrLoadById(
+        return cacheClient.getOrLoadByIdWithLogicalExpire(
                 "im:conv:",
                 convId,
-                CONV_TTL,
+                CONV_LOGICAL_TTL,
                 Conversation.class,
                 ignore -> conversationMapper.selectById(convId)
         );
     }
 
+    /**
+     * 批量查询会话（缓存优先，一次 MGET + 一次批量回源）
+     * 与 selectById 共用 im:conv:{convId} 与逻辑过期格式，批量回填的条目同样按 CONV_LOGICAL_TTL 后台刷新
+     *
+     * @return convId -> 会话，不存在的会话不在结果中
+     */
+    public Map<Long, Conversation> selectByIds(Collection<Long> convIds) {
+        // key: im:conv:{convId}
+        return cacheClient.getOrLoadByIdsWithLogicalExpire(
+                "im:conv:",
+                convIds,
+                CONV_LOGICAL_TTL,
+                Conversation.class,
+                ids -> {
+                    Map<Long, Conversation> loaded = new HashMap<>();
+                    for (Conversation c : conversationMapper.selectByIds(ids)) {
+                        loaded.put(c.getId(), c);
+                    }
+                    return loaded;
+                }
+        );
+    }
+
     /**
      * 查询用户会话ID列表（缓存优先）
      */
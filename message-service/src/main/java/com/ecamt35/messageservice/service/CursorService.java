@@ -21,7 +21,7 @@ import java.util.concurrent.TimeUnit;
 public class CursorService {
 
     // TTL = 30 day
-    private static final String CURSOR_TTL_SECONDS = String.valueOf(24 * 60 * 60 * 30);
+    static final String CURSOR_TTL_SECONDS = String.valueOf(24 * 60 * 60 * 30);
     private static final long CURSOR_TTL_SECONDS_LONG = 24L * 60 * 60 * 30;
 
     private final StringRedisTemplate redisTemplate;
@@ -33,6 +33,8 @@ public class CursorService {
     private final DefaultRedisScript<Long> initBaseAndIncrScript;
     private final DefaultRedisScript<Long> initOrMaxAndGetScript;
     private final DefaultRedisScript<Long> maxHsetScript;
+    private final DefaultRedisScript<Long> readCursorAdvanceScript;
+    private final ReadCursorWriteBehind readCursorWriteBehind;
 
     public CursorService(
             StringRedisTemplate redisTemplate,
@@ -42,7 +44,9 @@ public class CursorService {
             @Qualifier("incrIfExistsScript") DefaultRedisScript<Long> incrIfExistsScript,
             @Qualifier("initBaseAndIncrScript") DefaultRedisScript<Long> initBaseAndIncrScript,
             @Qualifier("initOrMaxAndGetScript") DefaultRedisScript<Long> initOrMaxAndGetScript,
-            @Qualifier("maxHsetScript") DefaultRedisScript<Long> maxHsetScript
+            @Qualifier("maxHsetScript") DefaultRedisScript<Long> maxHsetScript,
+            @Qualifier("readCursorAdvanceScript") DefaultRedisScript<Long> readCursorAdvanceScript,
+            ReadCursorWriteBehind readCursorWriteBehind
     ) {
         this.redisTemplate = redisTemplate;
         this.messageMapper = messageMapper;
@@ -52,13 +56,15 @@ public class CursorService {
         this.initBaseAndIncrScript = initBaseAndIncrScript;
         this.initOrMaxAndGetScript = initOrMaxAndGetScript;
         this.maxHsetScript = maxHsetScript;
+        this.readCursorAdvanceScript = readCursorAdvanceScript;
+        this.readCursorWriteBehind = readCursorWriteBehind;
     }
 
-    private String lastSeqKey(Long convId) {
+    String lastSeqKey(Long convId) {
         return "im:conv:last_seq:" + convId;
     }
 
-    private String readHashKey(Long userId) {
+    static String readHashKey(Long userId) {
         return "im:read:" + userId;
     }
 
@@ -218,8 +224,8 @@ public class CursorService {
 
     /**
      * 推进用户在会话内的已读游标（read cursor）：
-     * 1) Redis Lua max(old,new) 优先
-     * 2) Redis 故障：DB 兜底（取 DB last_read_seq 与 seq 的 max），并尽量回填 Redis
+     * 1) Redis Lua max(old,new) 优先，推进时登记本节点待落库集合，DB 由 write-behind 合并后批量更新
+     * 2) Redis 故障：DB 兜底（取 DB last_read_seq 与 seq 的 max），并尽量回填 Redis，DB 同步更新
      */
     public long advanceRead(Long userId, Long convId, long seq) {
         if (userId == null || convId == null) {
@@ -233,15 +239,16 @@ public class CursorService {
         // Redis 推进
         try {
             Long v = redisTemplate.execute(
-                    maxHsetScript,
-                    Collections.singletonList(hk),
+                    readCursorAdvanceScript,
+                    List.of(hk, readCursorWriteBehind.dirtyKey()),
                     field,
                     String.valueOf(seq),
-                    CURSOR_TTL_SECONDS
+                    CURSOR_TTL_SECONDS,
+                    ReadCursorWriteBehind.dirtyMember(userId, convId),
+                    String.valueOf(System.currentTimeMillis())
             );
             if (v != null) {
-                // todo 扔到MQ去更新DB ReadSeq
-                memberMapper.updateReadCursor(convId, userId, v);
+                readCursorWriteBehind.offer(userId, convId, v);
                 return v;
             }
         } catch (Exception ignore) {
@@ -264,7 +271,6 @@ public class CursorService {
             if (v2 != null) safe = v2;
         } catch (Exception ignore) {
         }
-        // todo 扔到MQ去更新DB ReadSeq
         memberMapper.updateReadCursor(convId, userId, safe);
 
         return safe;
@@ -2,23 +2,28 @@ package com.ecamt35.messageservice.service;
 
 import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
+import com.ecamt35.messageservice.model.bo.DeviceRouteBo;
+import com.ecamt35.messageservice.model.bo.MessageBatchPushBo;
+import com.ecamt35.messageservice.model.bo.MessageDispatchBo;
 import com.ecamt35.messageservice.model.bo.SendMessageBo;
+import com.ecamt35.messageservice.model.vo.ConversationHintVo;
 import com.ecamt35.messageservice.model.vo.PushVo;
-import com.ecamt35.messageservice.util.BusinessException;
+import com.ecamt35.messageservice.websocket.PushFrameEncoder;
+import com.ecamt35.messageservice.websocket.PushFrameEncoder.SharedPush;
 import com.ecamt35.messageservice.websocket.UserChannelRegistry;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 @Slf4j
 @Service
@@ -27,6 +32,9 @@ public class DeliveryService {
 
     static final String USER_DEVICES = "user:devices:";
 
+    private static final byte[] ROUTE_FIELD_NODE = "node".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ROUTE_FIELD_SESSION_ID = "sessionId".getBytes(StandardCharsets.UTF_8);
+
     @Resource
     private UserChannelRegistry userChannelRegistry;
     @Resource
@@ -34,35 +42,43 @@ public class DeliveryService {
     @Resource
     private RedisTemplate<String, String> redisTemplate;
     @Resource
-    private ObjectMapper objectMapper;
+    private PushFrameEncoder pushFrameEncoder;
 
     @Value("${node-name}")
     private String nodeName;
 
+    /**
+     * 群投递每批解析路由的成员数（一批两次 pipeline 往返）
+     */
+    @Value("${message.delivery.route-batch-size:500}")
+    private int routeBatchSize;
+
     /**
      * 向指定用户发送消息
      */
     public void deliverToUserDevices(SendMessageBo sendMessageBo) {
-        PushVo pushVo = new PushVo(PacketTypeConstant.SERVER_REQUEST_SENT, sendMessageBo);
-
-        final String pushJson;
-        try {
-            pushJson = objectMapper.writeValueAsString(pushVo);
-        } catch (Exception e) {
-            throw new BusinessException(e.getMessage());
-        }
-
         Long targetUserId = sendMessageBo.getTargetUserId();
         if (targetUserId == null) {
             log.warn("targetUserId is null, skip");
             return;
         }
 
+        // 下发给客户端的 payload 不含接收者相关字段，同一条消息对所有设备字节一致
+        SharedPush payload = encodePush(toClientPayload(sendMessageBo));
+        try {
+            deliverToUserDevices(sendMessageBo, targetUserId, payload);
+        } finally {
+            payload.release();
+        }
+    }
+
+    private void deliverToUserDevices(SendMessageBo sendMessageBo, Long targetUserId, SharedPush payload) {
+
         // 单设备（跨节点回来的消息会带 receiverDeviceId）
         String receiverDeviceId = Convert.toStr(sendMessageBo.getReceiverDeviceId());
         if (receiverDeviceId != null && !receiverDeviceId.isBlank()) {
             log.info("Single device push,device id:{}", receiverDeviceId);
-            deliverToOneDevice(targetUserId, receiverDeviceId, pushJson, sendMessageBo);
+            deliverToOneDevice(targetUserId, receiverDeviceId, payload, sendMessageBo);
             return;
         }
 
@@ -80,7 +96,7 @@ public class DeliveryService {
         for (Map.Entry<Object, Object> entry : deviceTokenMap.entrySet()) {
             String deviceId = Convert.toStr(entry.getKey());
             if (deviceId == null || deviceId.isBlank()) continue;
-            deliverToOneDevice(targetUserId, deviceId, pushJson, sendMessageBo);
+            deliverToOneDevice(targetUserId, deviceId, payload, sendMessageBo);
         }
     }
 
@@ -89,7 +105,7 @@ public class DeliveryService {
      */
     private void deliverToOneDevice(Long targetUserId,
                                     String deviceId,
-                                    String pushJson,
+                                    SharedPush payload,
                                     SendMessageBo sendMessageBo) {
 
         String wsOnlineKey = userChannelRegistry.wsOnlineKey(targetUserId, deviceId);
@@ -108,19 +124,7 @@ public class DeliveryService {
         String sessionId = Convert.toStr(sidObj);
 
         if (nodeName.equals(node)) {
-            Channel ch = userChannelRegistry.getRegisteredChannel(targetUserId, deviceId);
-            if (ch == null || !ch.isActive() || !ch.isWritable()) return;
-
-            Boolean reg = ch.attr(UserChannelRegistry.REGISTERED_KEY).get();
-            if (reg == null || !reg) return;
-
-            String localSid = ch.attr(UserChannelRegistry.SESSION_ID_KEY).get();
-            if (sessionId != null && !sessionId.isBlank()
-                    && localSid != null && !localSid.equals(sessionId)) {
-                return;
-            }
-
-            ch.eventLoop().execute(() -> ch.writeAndFlush(new TextWebSocketFrame(pushJson)));
+            writeToLocalChannel(targetUserId, deviceId, sessionId, payload);
         } else {
             // 跨节点转发必须携带 deviceId，否则对方只能再遍历
             SendMessageBo forwarded = new SendMessageBo(
@@ -142,4 +146,232 @@ public class DeliveryService {
             rabbitTemplate.convertAndSend(routingKey + ".direct", routingKey, forwarded);
         }
     }
+
+    /**
+     * 群消息批量投递：
+     * 1) 按批 pipeline 查询成员设备列表与 ws 在线路由（每批两次 Redis 往返，而非每设备一次）
+     * 2) 本节点设备直接写 Channel
+     * 3) 远端设备按节点聚合，每节点一次 MQ 发布
+     *
+     * @param dispatchBo 分发任务
+     * @param memberIds  接收成员
+     */
+    public void deliverToMembers(MessageDispatchBo dispatchBo, List<Long> memberIds) {
+        deliverToMembers(dispatchBo, memberIds, false);
+    }
+
+    /**
+     * 大群只推会话提示（SERVER_CONVERSATION_HINT），不推消息体，客户端收到后按 seq 拉取。
+     * 路由解析与按节点聚合同 deliverToMembers。
+     *
+     * @param conversationId 会话ID
+     * @param lastSeq        会话最新 seq
+     * @param memberIds      接收成员
+     */
+    public void deliverHintToMembers(Long conversationId, Long lastSeq, List<Long> memberIds) {
+        if (conversationId == null || lastSeq == null) {
+            return;
+        }
+        MessageDispatchBo hint = new MessageDispatchBo();
+        hint.setConversationId(conversationId);
+        hint.setSeq(lastSeq);
+        deliverToMembers(hint, memberIds, true);
+    }
+
+    private void deliverToMembers(MessageDispatchBo dispatchBo, List<Long> memberIds, boolean hintOnly) {
+        if (dispatchBo == null || memberIds == null || memberIds.isEmpty()) {
+            return;
+        }
+        int batchSize = Math.max(1, routeBatchSize);
+        for (int from = 0; from < memberIds.size(); from += batchSize) {
+            List<Long> chunk = memberIds.subList(from, Math.min(from + batchSize, memberIds.size()));
+            try {
+                List<DeviceRouteBo> routes = resolveOnlineRoutes(chunk);
+                deliverRoutes(dispatchBo, hintOnly, routes);
+            } catch (Exception ex) {
+                log.error("Deliver message batch failed, messageId={}, conversationId={}, members={}",
+                        dispatchBo.getMessageId(), dispatchBo.getConversationId(), chunk.size(), ex);
+            }
+        }
+    }
+
+    /**
+     * 消费其他节点转发来的批量信封，投递到本节点设备。
+     * 路由已迁移（设备重连到其他节点）的目标退化为单设备投递，由其重新查路由；
+     * 会话提示不做退化转发，设备重连后会拉取摘要补齐。
+     */
+    public void deliverBatchLocally(MessageBatchPushBo batchPushBo) {
+        if (batchPushBo == null || batchPushBo.getMessage() == null || batchPushBo.getTargets() == null) {
+            return;
+        }
+        MessageDispatchBo dispatchBo = batchPushBo.getMessage();
+        boolean hintOnly = Boolean.TRUE.equals(batchPushBo.getHintOnly());
+        SharedPush payload = encodeBatchPush(dispatchBo, hintOnly);
+        try {
+            for (DeviceRouteBo target : batchPushBo.getTargets()) {
+                Long uid = target.getUserId();
+                String deviceId = target.getDeviceId();
+                if (uid == null || deviceId == null || deviceId.isBlank()) continue;
+
+                if (!writeToLocalChannel(uid, deviceId, target.getSessionId(), payload) && !hintOnly) {
+                    deliverToOneDevice(uid, deviceId, payload, toSendMessageBo(dispatchBo, uid));
+                }
+            }
+        } finally {
+            payload.release();
+        }
+    }
+
+    /**
+     * 批量解析在线路由：
+     * 第一次 pipeline：HKEYS user:devices:{uid}
+     * 第二次 pipeline：HMGET ws:online:{uid}:{deviceId} node sessionId
+     */
+    private List<DeviceRouteBo> resolveOnlineRoutes(List<Long> userIds) {
+        RedisSerializer<String> keySerializer = RedisSerializer.string();
+
+        List<Object> deviceKeys = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long uid : userIds) {
+                connection.hashCommands().hKeys(keySerializer.serialize(USER_DEVICES + uid));
+            }
+            return null;
+        }, keySerializer);
+
+        List<DeviceRouteBo> candidates = new ArrayList<>();
+        for (int i = 0; i < userIds.size() && i < deviceKeys.size(); i++) {
+            if (!(deviceKeys.get(i) instanceof Collection<?> devices)) continue;
+            for (Object d : devices) {
+                String deviceId = Convert.toStr(d);
+                if (deviceId == null || deviceId.isBlank()) continue;
+                candidates.add(new DeviceRouteBo(userIds.get(i), deviceId, null, null));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        List<Object> routeValues = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (DeviceRouteBo c : candidates) {
+                byte[] key = keySerializer.serialize(userChannelRegistry.wsOnlineKey(c.getUserId(), c.getDeviceId()));
+                connection.hashCommands().hMGet(key, ROUTE_FIELD_NODE, ROUTE_FIELD_SESSION_ID);
+            }
+            return null;
+        }, redisTemplate.getHashValueSerializer());
+
+        List<DeviceRouteBo> online = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size() && i < routeValues.size(); i++) {
+            if (!(routeValues.get(i) instanceof List<?> route) || route.isEmpty() || route.get(0) == null) {
+                // 不在线不推
+                continue;
+            }
+            DeviceRouteBo c = candidates.get(i);
+            c.setNode(Convert.toStr(route.get(0)));
+            c.setSessionId(route.size() < 2 ? null : Convert.toStr(route.get(1)));
+            online.add(c);
+        }
+        return online;
+    }
+
+    /**
+     * 本节点直接写，远端按节点聚合后一次转发
+     */
+    private void deliverRoutes(MessageDispatchBo dispatchBo, boolean hintOnly, List<DeviceRouteBo> routes) {
+        if (routes.isEmpty()) {
+            return;
+        }
+        Map<String, List<DeviceRouteBo>> remoteByNode = new HashMap<>();
+        // 本节点所有设备共享同一份序列化结果，首次写入对应格式的设备时才编码
+        SharedPush payload = encodeBatchPush(dispatchBo, hintOnly);
+        try {
+            for (DeviceRouteBo r : routes) {
+                if (nodeName.equals(r.getNode())) {
+                    writeToLocalChannel(r.getUserId(), r.getDeviceId(), r.getSessionId(), payload);
+                } else {
+                    remoteByNode.computeIfAbsent(r.getNode(), n -> new ArrayList<>()).add(r);
+                }
+            }
+        } finally {
+            payload.release();
+        }
+
+        for (Map.Entry<String, List<DeviceRouteBo>> e : remoteByNode.entrySet()) {
+            String routingKey = "websocket-message-batch-" + e.getKey();
+            MessageBatchPushBo envelope = new MessageBatchPushBo(dispatchBo, e.getValue(), hintOnly);
+            rabbitTemplate.convertAndSend("websocket-message-" + e.getKey() + ".direct", routingKey, envelope);
+        }
+    }
+
+    /**
+     * 写本地 Channel
+     *
+     * @return false 表示本节点没有该设备的 Channel（路由可能已迁移）
+     */
+    private boolean writeToLocalChannel(Long targetUserId, String deviceId, String sessionId, SharedPush payload) {
+        Channel ch = userChannelRegistry.getRegisteredChannel(targetUserId, deviceId);
+        if (ch == null) return false;
+        // 不可写时由 OutboundBackpressureHandler 排队，不在此丢弃
+        if (!ch.isActive()) return true;
+
+        Boolean reg = ch.attr(UserChannelRegistry.REGISTERED_KEY).get();
+        if (reg == null || !reg) return true;
+
+        String localSid = ch.attr(UserChannelRegistry.SESSION_ID_KEY).get();
+        if (sessionId != null && !sessionId.isBlank()
+                && localSid != null && !localSid.equals(sessionId)) {
+            return true;
+        }
+
+        pushFrameEncoder.writeShared(ch, payload);
+        return true;
+    }
+
+    private SharedPush encodeBatchPush(MessageDispatchBo dispatchBo, boolean hintOnly) {
+        if (!hintOnly) {
+            return encodePush(toSendMessageBo(dispatchBo, null));
+        }
+        // 提示本身也可折叠：连接积压时与同会话的其他推送合并为一条
+        PushVo hint = new PushVo(PacketTypeConstant.SERVER_CONVERSATION_HINT,
+                new ConversationHintVo(dispatchBo.getConversationId(), dispatchBo.getSeq()));
+        return pushFrameEncoder.encodeCollapsible(hint, dispatchBo.getConversationId(), dispatchBo.getSeq());
+    }
+
+    private SharedPush encodePush(SendMessageBo sendMessageBo) {
+        return pushFrameEncoder.encodeCollapsible(new PushVo(PacketTypeConstant.SERVER_REQUEST_SENT, sendMessageBo),
+                sendMessageBo.getConversationId(), sendMessageBo.getSeq());
+    }
+
+    /**
+     * 去掉接收者相关字段（targetUserId/receiverDeviceId），只保留消息本身
+     */
+    private static SendMessageBo toClientPayload(SendMessageBo bo) {
+        return new SendMessageBo(
+                null,
+                bo.getMessage(),
+                bo.getChatType(),
+                bo.getMessageType(),
+                bo.getSenderId(),
+                bo.getMessageId(),
+                bo.getSendTime(),
+                null,
+                bo.getConversationId(),
+                bo.getGroupId(),
+                bo.getSeq()
+        );
+    }
+
+    private static SendMessageBo toSendMessageBo(MessageDispatchBo dispatchBo, Long targetUserId) {
+        return new SendMessageBo(
+                targetUserId,
+                dispatchBo.getContent(),
+                dispatchBo.getChatType(),
+                dispatchBo.getMsgType(),
+                dispatchBo.getSenderId(),
+                dispatchBo.getMessageId(),
+                dispatchBo.getSendTime(),
+                null,
+                dispatchBo.getConversationId(),
+                dispatchBo.getGroupId(),
+                dispatchBo.getSeq()
+        );
+    }
 }
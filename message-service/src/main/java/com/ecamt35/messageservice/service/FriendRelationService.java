@@ -118,6 +118,7 @@ public class FriendRelationService {
             upsertFriendEdge(apply.getTargetId(), apply.getApplicantId());
             evictFriendSetAfterCommit(apply.getApplicantId());
             evictFriendSetAfterCommit(apply.getTargetId());
+            evictPairPermissionAfterCommit(apply.getApplicantId(), apply.getTargetId());
         }
 
         relationEventPublisher.emitEvent(Set.of(apply.getApplicantId(), apply.getTargetId()), "FRIEND_APPLY_DECIDED", Map.of(
@@ -176,6 +177,7 @@ public class FriendRelationService {
         friendLinkMapper.removeActive(targetId, userId);
         evictFriendSetAfterCommit(userId);
         evictFriendSetAfterCommit(targetId);
+        evictPairPermissionAfterCommit(userId, targetId);
 
         relationEventPublisher.emitEvent(Set.of(targetId), "FRIEND_DELETED", Map.of(
                 "userId", userId,
@@ -189,7 +191,18 @@ public class FriendRelationService {
      * 是否双向好友。
      */
     public boolean isMutualFriend(Long userA, Long userB) {
-        return hasFriendEdge(userA, userB) && hasFriendEdge(userB, userA);
+        if (userA == null || userB == null) {
+            return false;
+        }
+        // 两条边一次 pipeline 判断，不拉取双方整套好友集合
+        boolean[] edges = cacheClient.containsOrLoadAll(
+                List.of(friendSetKey(userA), friendSetKey(userB)),
+                List.of(userB, userA),
+                FRIEND_SET_TTL,
+                Long.class,
+                key -> friendLinkMapper.listActiveTargetIds(key.equals(friendSetKey(userA)) ? userA : userB)
+        );
+        return edges[0] && edges[1];
     }
 
     /**
@@ -199,8 +212,13 @@ public class FriendRelationService {
         if (userId == null || targetId == null) {
             return false;
         }
-        Set<Long> friendSet = listFriendTargetIds(userId);
-        return friendSet.contains(targetId);
+        return cacheClient.containsOrLoad(
+                friendSetKey(userId),
+                targetId,
+                FRIEND_SET_TTL,
+                Long.class,
+                () -> friendLinkMapper.listActiveTargetIds(userId)
+        );
     }
 
     /**
@@ -228,6 +246,29 @@ public class FriendRelationService {
         cacheClient.evict(friendSetKey(userId));
     }
 
+    /**
+     * 在事务提交后失效双向私聊发送权限快照。
+     */
+    public void evictPairPermissionAfterCommit(Long userA, Long userB) {
+        if (userA == null || userB == null) {
+            return;
+        }
+        List<String> keys = List.of(
+                RelationCacheKeyConstant.pairPermissionKey(userA, userB),
+                RelationCacheKeyConstant.pairPermissionKey(userB, userA)
+        );
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheClient.evict(keys);
+                }
+            });
+            return;
+        }
+        cacheClient.evict(keys);
+    }
+
     /**
      * 在事务提交后失效好友缓存，避免未提交事务触发脏回填。
      */
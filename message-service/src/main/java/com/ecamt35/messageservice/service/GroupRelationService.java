@@ -28,6 +28,8 @@ public class GroupRelationService {
     private final ConversationMapper conversationMapper;
     private final ConversationMemberMapper conversationMemberMapper;
     private final ConversationService conversationService;
+    private final GroupSendAuthService groupSendAuthService;
+    private final ConversationMemberCache conversationMemberCache;
     private final RelationEventPublisher relationEventPublisher;
 
     /**
@@ -76,6 +78,7 @@ public class GroupRelationService {
         owner.setSpeakBannedUntil(0L);
         owner.setDeleted(0);
         conversationMemberMapper.insert(owner);
+        conversationMemberCache.memberAddedAfterCommit(convId, userId);
 
         conversationService.evictUserConversationIds(userId);
 
@@ -129,6 +132,8 @@ public class GroupRelationService {
         conv.setDeleted(1);
         conversationMapper.updateById(conv);
         conversationMemberMapper.removeAllByConversation(conv.getId());
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
+        conversationMemberCache.clearAfterCommit(conv.getId());
 
         conversationService.evictConversationById(conv.getId());
         for (ConversationMember member : members) {
@@ -206,9 +211,14 @@ public class GroupRelationService {
         }
 
         conversationMemberMapper.removeMember(conv.getId(), userId);
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
+        conversationMemberCache.memberRemovedAfterCommit(conv.getId(), userId);
         conversationService.evictUserConversationIds(userId);
 
-        relationEventPublisher.emitEvent(groupMemberIds(conv.getId()), "GROUP_MEMBER_QUIT", Map.of(
+        // 成员缓存在提交后才更新，这里显式排除退出者
+        Set<Long> notifyUsers = groupMemberIds(conv.getId());
+        notifyUsers.remove(userId);
+        relationEventPublisher.emitEvent(notifyUsers, "GROUP_MEMBER_QUIT", Map.of(
                 "groupId", groupId,
                 "userId", userId
         ));
@@ -234,9 +244,13 @@ public class GroupRelationService {
 
         if (Objects.equals(group.getJoinPolicy(), RelationStatusConstant.JOIN_POLICY_OPEN)) {
             ensureMemberActive(conv.getId(), userId, RelationStatusConstant.ROLE_MEMBER);
+            groupSendAuthService.invalidateAfterCommit(conv.getId());
             conversationService.evictUserConversationIds(userId);
 
-            relationEventPublisher.emitEvent(groupMemberIds(conv.getId()), "GROUP_MEMBER_JOINED", Map.of(
+            // 成员缓存在提交后才更新，这里显式包含新成员
+            Set<Long> notifyUsers = groupMemberIds(conv.getId());
+            notifyUsers.add(userId);
+            relationEventPublisher.emitEvent(notifyUsers, "GROUP_MEMBER_JOINED", Map.of(
                     "groupId", groupId,
                     "userId", userId,
                     "auto", true
@@ -334,6 +348,7 @@ public class GroupRelationService {
 
         if (approve) {
             ensureMemberActive(conv.getId(), apply.getApplicantId(), RelationStatusConstant.ROLE_MEMBER);
+            groupSendAuthService.invalidateAfterCommit(conv.getId());
             conversationService.evictUserConversationIds(apply.getApplicantId());
         }
 
@@ -349,7 +364,9 @@ public class GroupRelationService {
         ));
 
         if (approve) {
-            relationEventPublisher.emitEvent(groupMemberIds(conv.getId()), "GROUP_MEMBER_JOINED", Map.of(
+            Set<Long> joinedNotifyUsers = groupMemberIds(conv.getId());
+            joinedNotifyUsers.add(apply.getApplicantId());
+            relationEventPublisher.emitEvent(joinedNotifyUsers, "GROUP_MEMBER_JOINED", Map.of(
                     "groupId", apply.getGroupId(),
                     "userId", apply.getApplicantId(),
                     "auto", false
@@ -374,6 +391,8 @@ public class GroupRelationService {
         ensureCanManageMember(operator, target);
 
         conversationMemberMapper.removeMember(conv.getId(), targetUserId);
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
+        conversationMemberCache.memberRemovedAfterCommit(conv.getId(), targetUserId);
         conversationService.evictUserConversationIds(targetUserId);
 
         // 踢人事件仅通知群主/管理员以及被踢成员
@@ -407,6 +426,7 @@ public class GroupRelationService {
         }
 
         conversationMemberMapper.updateRole(conv.getId(), targetUserId, RelationStatusConstant.ROLE_ADMIN);
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
 
         relationEventPublisher.emitEvent(groupMemberIds(conv.getId()), "GROUP_ADMIN_SET", Map.of(
                 "groupId", groupId,
@@ -435,6 +455,7 @@ public class GroupRelationService {
         }
 
         conversationMemberMapper.updateRole(conv.getId(), targetUserId, RelationStatusConstant.ROLE_MEMBER);
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
 
         relationEventPublisher.emitEvent(groupMemberIds(conv.getId()), "GROUP_ADMIN_UNSET", Map.of(
                 "groupId", groupId,
@@ -459,6 +480,7 @@ public class GroupRelationService {
         ImGroup group = requireGroup(groupId);
         group.setMuteAll(muted ? 1 : 0);
         imGroupMapper.updateById(group);
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
 
         relationEventPublisher.emitEvent(groupMemberIds(conv.getId()), muted ? "GROUP_MUTE_ALL_SET" : "GROUP_MUTE_ALL_UNSET", Map.of(
                 "groupId", groupId,
@@ -492,6 +514,7 @@ public class GroupRelationService {
         }
 
         conversationMemberMapper.updateSpeakBannedUntil(conv.getId(), targetUserId, bannedUntil);
+        groupSendAuthService.invalidateAfterCommit(conv.getId());
 
         relationEventPublisher.emitEvent(Set.of(targetUserId), muted ? "GROUP_MEMBER_MUTED" : "GROUP_MEMBER_MUTE_REMOVED", Map.of(
                 "groupId", groupId,
@@ -542,13 +565,16 @@ public class GroupRelationService {
         return member;
     }
 
+    /**
+     * 群成员ID（读成员列表缓存，反映已提交的成员关系），返回可修改的新集合
+     */
     private Set<Long> groupMemberIds(Long convId) {
-        List<ConversationMember> members = conversationMemberMapper.listActiveMembers(convId);
-        if (members == null || members.isEmpty()) return Collections.emptySet();
-        return members.stream()
-                .map(ConversationMember::getUserId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+        long[] members = conversationMemberCache.getMemberIds(convId);
+        Set<Long> ids = new HashSet<>(Math.max(16, members.length * 2));
+        for (long m : members) {
+            ids.add(m);
+        }
+        return ids;
     }
 
     private Set<Long> groupManagerAndOwnerIds(Long convId) {
@@ -573,6 +599,7 @@ public class GroupRelationService {
             if (restored == 0 && conversationMemberMapper.findActive(convId, userId) == null) {
                 throw new IllegalStateException("restore group member failed");
             }
+            conversationMemberCache.memberAddedAfterCommit(convId, userId);
             return;
         }
 
@@ -586,6 +613,7 @@ public class GroupRelationService {
         member.setSpeakBannedUntil(0L);
         member.setDeleted(0);
         conversationMemberMapper.insert(member);
+        conversationMemberCache.memberAddedAfterCommit(convId, userId);
     }
 
     private Long requireLong(Map<String, Object> payload, String key) {
@@ -0,0 +1,164 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.constant.RelationCacheKeyConstant;
+import com.ecamt35.messageservice.constant.RelationStatusConstant;
+import com.ecamt35.messageservice.mapper.ConversationMemberMapper;
+import com.ecamt35.messageservice.mapper.ImGroupMapper;
+import com.ecamt35.messageservice.model.entity.Conversation;
+import com.ecamt35.messageservice.model.entity.ConversationMember;
+import com.ecamt35.messageservice.model.entity.ImGroup;
+import com.ecamt35.messageservice.util.RedisCacheClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 群发送鉴权快照：
+ * Hash im:group:auth:{convId}
+ * - meta -> version:groupId:muteAll:deleted
+ * - m:{userId} -> role:speakBannedUntil（仅 active 成员）
+ * 发送时一次 HMGET [meta, m:{senderId}]（开启 L1 时为本地读取），稳态群发送不查库。
+ * <p>
+ * 版本：im:group:auth-ver:{convId} 在每次群成员/群标志变更提交后 INCR 并删除快照；
+ * 快照回源前记录版本，回源写入后若版本已变化（回源期间发生变更）立即删除，避免旧快照长期存活。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GroupSendAuthService {
+
+    private static final Duration GROUP_AUTH_TTL = Duration.ofDays(1);
+    private static final String META_FIELD = "meta";
+    private static final String MEMBER_FIELD_PREFIX = "m:";
+
+    private final RedisCacheClient cacheClient;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConversationService conversationService;
+    private final ConversationMemberMapper memberMapper;
+    private final ImGroupMapper imGroupMapper;
+
+    /**
+     * 校验群发送权限：成员身份、个人禁言、群状态、全员禁言
+     *
+     * @return 群ID
+     * @throws IllegalArgumentException 非群会话
+     * @throws IllegalStateException    无发送权限
+     */
+    public Long requireCanSend(Long convId, Long senderId) {
+        String key = RelationCacheKeyConstant.GROUP_AUTH_PREFIX + convId;
+        boolean[] loadedNow = new boolean[1];
+        List<String> values = cacheClient.getHashFieldsOrLoad(
+                key,
+                List.of(META_FIELD, MEMBER_FIELD_PREFIX + senderId),
+                GROUP_AUTH_TTL,
+                String.class,
+                () -> {
+                    loadedNow[0] = true;
+                    return loadSnapshot(convId);
+                }
+        );
+        String meta = values.get(0);
+        String member = values.get(1);
+
+        if (meta == null) {
+            // 非群会话（回源时写入空 Hash 占位）
+            throw new IllegalArgumentException("invalid group conversation");
+        }
+        String[] m = meta.split(":");
+        long version = Long.parseLong(m[0]);
+        Long groupId = Long.parseLong(m[1]);
+        boolean muteAll = "1".equals(m[2]);
+        boolean deleted = "1".equals(m[3]);
+        if (loadedNow[0] && version != currentVersion(convId)) {
+            cacheClient.evict(key);
+        }
+
+        // 判断发送者是否有加入群组
+        if (member == null) {
+            throw new IllegalStateException("not a group member");
+        }
+        String[] r = member.split(":");
+        int role = Integer.parseInt(r[0]);
+        long bannedUntil = Long.parseLong(r[1]);
+
+        // 群个人禁言优先于后续全员禁言判断
+        if (bannedUntil > System.currentTimeMillis()) {
+            throw new IllegalStateException("you are muted in this group");
+        }
+        if (deleted) {
+            throw new IllegalStateException("group not found");
+        }
+        if (muteAll && role < RelationStatusConstant.ROLE_ADMIN) {
+            // 全员禁言下仅管理员/群主可发言
+            throw new IllegalStateException("group is muted for all members");
+        }
+        return groupId;
+    }
+
+    /**
+     * 群成员或群标志变更后（事务提交后）递增版本并删除快照
+     */
+    public void invalidateAfterCommit(Long convId) {
+        if (convId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(convId);
+                }
+            });
+            return;
+        }
+        invalidate(convId);
+    }
+
+    private void invalidate(Long convId) {
+        try {
+            stringRedisTemplate.opsForValue().increment(RelationCacheKeyConstant.GROUP_AUTH_VERSION_PREFIX + convId);
+        } catch (Exception e) {
+            log.warn("Bump group auth version failed, convId={}, err={}", convId, e.getMessage());
+        }
+        cacheClient.evict(RelationCacheKeyConstant.GROUP_AUTH_PREFIX + convId);
+    }
+
+    private long currentVersion(Long convId) {
+        String v = stringRedisTemplate.opsForValue().get(RelationCacheKeyConstant.GROUP_AUTH_VERSION_PREFIX + convId);
+        return v == null ? 0L : Long.parseLong(v);
+    }
+
+    private Map<String, String> loadSnapshot(Long convId) {
+        // 先取版本再读库：读库期间的变更会使版本前进，写入后的校验据此删除旧快照
+        long version = currentVersion(convId);
+
+        Conversation conv = conversationService.selectById(convId);
+        if (conv == null || conv.getType() == null || conv.getType() != 1 || conv.getGroupId() == null) {
+            return Map.of();
+        }
+        ImGroup group = imGroupMapper.selectById(conv.getGroupId());
+        boolean deleted = group == null || group.getDeleted() != null && group.getDeleted() == 1;
+        boolean muteAll = group != null && group.getMuteAll() != null && group.getMuteAll() == 1;
+
+        List<ConversationMember> members = memberMapper.listActiveMembers(convId);
+        Map<String, String> snapshot = new HashMap<>(members.size() + 1);
+        snapshot.put(META_FIELD, version + ":" + conv.getGroupId() + ":" + (muteAll ? 1 : 0) + ":" + (deleted ? 1 : 0));
+        for (ConversationMember m : members) {
+            if (m.getUserId() == null) {
+                continue;
+            }
+            int role = m.getRole() == null ? RelationStatusConstant.ROLE_MEMBER : m.getRole();
+            long bannedUntil = m.getSpeakBannedUntil() == null ? 0L : m.getSpeakBannedUntil();
+            snapshot.put(MEMBER_FIELD_PREFIX + m.getUserId(), role + ":" + bannedUntil);
+        }
+        return snapshot;
+    }
+}
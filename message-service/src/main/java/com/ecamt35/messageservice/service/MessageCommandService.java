@@ -1,14 +1,8 @@
 package com.ecamt35.messageservice.service;
 
 import cn.hutool.core.lang.Snowflake;
-import com.ecamt35.messageservice.constant.RelationStatusConstant;
-import com.ecamt35.messageservice.mapper.ConversationMemberMapper;
-import com.ecamt35.messageservice.mapper.ImGroupMapper;
 import com.ecamt35.messageservice.mapper.MessageMapper;
 import com.ecamt35.messageservice.model.bo.MessageDispatchBo;
-import com.ecamt35.messageservice.model.entity.Conversation;
-import com.ecamt35.messageservice.model.entity.ConversationMember;
-import com.ecamt35.messageservice.model.entity.ImGroup;
 import com.ecamt35.messageservice.model.entity.Message;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,12 +15,14 @@ import org.springframework.stereotype.Service;
 public class MessageCommandService {
 
     private final Snowflake snowflake;
-    private final CursorService cursorService;
-    private final ConversationService conversationService;
-    private final ConversationMemberMapper memberMapper;
+    private final ConversationSequencer conversationSequencer;
+    private final PrivateSendPermissionService privateSendPermissionService;
     private final MessageMapper messageMapper;
+    private final MessageGroupCommitWriter messageGroupCommitWriter;
+    private final MessageIdempotencyIndex messageIdempotencyIndex;
     private final MessageDispatchService messageDispatchService;
-    private final ImGroupMapper imGroupMapper;
+    private final GroupSendAuthService groupSendAuthService;
+    private final MessageTailCache messageTailCache;
 
     /**
      * 发送消息，获取会话ID（单聊创建/群聊传入）、分配 seq、持久化消息（幂等）并异步触发分发任务。
@@ -57,55 +53,36 @@ public class MessageCommandService {
         if (content == null) content = "";
 
         // 先做幂等判定，存在则直接返回，不要先 INCR seq 导致 lastSeq 虚增
-        Message existed = messageMapper.findByClientMsgId(clientMsgId, senderId);
+        // 优先短期幂等索引，未命中跳过 DB 查询（超出索引 TTL 的重复由唯一键兜底），索引不可用时回退 DB
+        Message existed = messageIdempotencyIndex.find(senderId, clientMsgId);
+        if (existed == MessageIdempotencyIndex.UNAVAILABLE) {
+            existed = messageMapper.findByClientMsgId(clientMsgId, senderId);
+        }
         if (existed != null) {
             log.warn("Duplicate client message detected, return existing, clientMsgId:{}", clientMsgId);
             return existed;
         }
 
         Long convId;
-        Conversation conv = null;
+        Long groupId = null;
         if (chatType == 0) {
             // private
             if (receiverId == null) {
                 throw new IllegalArgumentException("receiverId required for private");
             }
-            // 必须存在会话双方成员
-            convId = conversationService.getOrCreatePrivateConversationIdOrThrow(senderId, receiverId);
+            // 必须存在会话双方成员（权限快照命中时不再查库）
+            convId = privateSendPermissionService.resolveConversationIdOrThrow(senderId, receiverId);
         } else {
             // chatType == 1 group
             if (conversationId == null) {
                 throw new IllegalArgumentException("conversationId required for group");
             }
             convId = conversationId;
-
-            conv = conversationService.selectById(convId);
-            if (conv == null || conv.getType() == null || conv.getType() != 1 || conv.getGroupId() == null) {
-                throw new IllegalArgumentException("invalid group conversation");
-            }
-            // 判断发送者是否有加入群组
-            ConversationMember senderCM = memberMapper.findActive(convId, senderId);
-            if (senderCM == null) throw new IllegalStateException("not a group member");
-
-            // 群个人禁言优先于后续全员禁言判断
-            Long bannedUntil = senderCM.getSpeakBannedUntil();
-            if (bannedUntil != null && bannedUntil > System.currentTimeMillis()) {
-                throw new IllegalStateException("you are muted in this group");
-            }
-
-            ImGroup group = imGroupMapper.selectById(conv.getGroupId());
-            if (group == null || group.getDeleted() != null && group.getDeleted() == 1) {
-                throw new IllegalStateException("group not found");
-            }
-            if (group.getMuteAll() != null
-                    && group.getMuteAll() == 1
-                    && (senderCM.getRole() == null || senderCM.getRole() < RelationStatusConstant.ROLE_ADMIN)) {
-                // 全员禁言下仅管理员/群主可发言
-                throw new IllegalStateException("group is muted for all members");
-            }
+            // 成员身份、个人禁言、群状态与全员禁言由群鉴权快照判断，稳态不查库
+            groupId = groupSendAuthService.requireCanSend(convId, senderId);
         }
 
-        long seq = cursorService.nextSeq(convId);
+        long seq = conversationSequencer.nextSeq(convId);
         long id = snowflake.nextId();
         long sendTime = System.currentTimeMillis();
 
@@ -120,22 +97,24 @@ public class MessageCommandService {
         msg.setSendTime(sendTime);
 
         try {
-            messageMapper.insert(msg);
+            // 组提交：与并发发送的消息合并为多行 INSERT，冲突行仍以 DuplicateKeyException 返回
+            messageGroupCommitWriter.persist(msg);
             // todo 发送了消息，考虑是否更新这个会话的ReadSeq为LastSeq
+            messageIdempotencyIndex.record(senderId, clientMsgId, msg);
+            // 追加到会话尾部环，供紧随推送的拉取直接命中
+            messageTailCache.append(msg);
             log.info("Message persisted successfully, clientMsgId:{}, id:{}", clientMsgId, id);
         } catch (DuplicateKeyException e) {
             // 极小概率并发 线程同时通过 existed=null 检查
             log.info("Duplicate message detected, return existing, clientMsgId:{}", clientMsgId);
             Message old = messageMapper.findByClientMsgId(clientMsgId, senderId);
-            if (old != null) return old;
+            if (old != null) {
+                messageIdempotencyIndex.record(senderId, clientMsgId, old);
+                return old;
+            }
             throw e;
         }
 
-        Long groupId = null;
-        if (conv != null) {
-            groupId = conv.getGroupId();
-        }
-
         // 落库后异步分发：发送链路只保证消息持久化与任务发布，不阻塞成员投递循环。
         MessageDispatchBo dispatchBo = new MessageDispatchBo(
                 msg.getId(),
@@ -1,21 +1,21 @@
 package com.ecamt35.messageservice.service;
 
 import com.ecamt35.messageservice.constant.MessageDispatchConstant;
-import com.ecamt35.messageservice.mapper.ConversationMemberMapper;
 import com.ecamt35.messageservice.model.bo.MessageDispatchBo;
-import com.ecamt35.messageservice.model.bo.SendMessageBo;
-import com.ecamt35.messageservice.model.entity.ConversationMember;
+import com.ecamt35.messageservice.util.ConsistentHash;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 消息分发编排服务：
  * 1) 发布异步分发任务
- * 2) 消费后执行成员遍历投递
+ * 2) 消费后按成员批量投递
  */
 @Slf4j
 @Service
@@ -24,11 +24,18 @@ public class MessageDispatchService {
 
     private final RabbitTemplate rabbitTemplate;
     private final MessageDispatchConstant messageDispatchConstant;
-    private final ConversationMemberMapper memberMapper;
+    private final ConversationMemberCache conversationMemberCache;
     private final DeliveryService deliveryService;
+    private final ConversationHintCoalescer conversationHintCoalescer;
 
     /**
-     * 发布异步分发任务。
+     * 读扩散阈值：成员数不小于该值的会话只推会话提示（SERVER_CONVERSATION_HINT），<=0 关闭
+     */
+    @Value("${message.dispatch.hint-threshold:500}")
+    private int hintThreshold;
+
+    /**
+     * 发布异步分发任务（按 conversationId 一致性哈希选择分区，同会话始终进入同一分区）。
      *
      * @param dispatchBo 分发任务
      */
@@ -36,15 +43,16 @@ public class MessageDispatchService {
         if (dispatchBo == null || dispatchBo.getMessageId() == null || dispatchBo.getConversationId() == null) {
             throw new IllegalArgumentException("invalid dispatch task");
         }
+        int partition = ConsistentHash.jump(dispatchBo.getConversationId(), messageDispatchConstant.getPartitions());
         rabbitTemplate.convertAndSend(
                 messageDispatchConstant.getExchange(),
-                messageDispatchConstant.getRoutingKey(),
+                messageDispatchConstant.getPartitionRoutingKey(partition),
                 dispatchBo
         );
     }
 
     /**
-     * 执行分发任务：查询会话成员并逐成员投递。
+     * 执行分发任务：读取会话成员（缓存）并批量投递。
      *
      * @param dispatchBo 分发任务
      */
@@ -61,37 +69,21 @@ public class MessageDispatchService {
             return;
         }
 
-        // todo 群成员缓存
-        // 根据会话成员进行实际投递，发送者自己不回推。
-        List<ConversationMember> members = memberMapper.listActiveMembers(convId);
-        if (members == null || members.isEmpty()) {
+        // 根据会话成员进行实际投递，发送者自己不回推；成员列表走版本化缓存，稳态不查库。
+        long[] members = conversationMemberCache.getMemberIds(convId);
+        if (members.length == 0) {
             return;
         }
-        for (ConversationMember m : members) {
-            Long uid = m.getUserId();
-            if (uid == null) {
-                continue;
-            }
-
-            SendMessageBo bo = new SendMessageBo(
-                    uid,
-                    dispatchBo.getContent(),
-                    dispatchBo.getChatType(),
-                    dispatchBo.getMsgType(),
-                    senderId,
-                    dispatchBo.getMessageId(),
-                    dispatchBo.getSendTime(),
-                    null,
-                    convId,
-                    dispatchBo.getGroupId(),
-                    dispatchBo.getSeq()
-            );
-            try {
-                deliveryService.deliverToUserDevices(bo);
-            } catch (Exception ex) {
-                log.error("Deliver message failed, messageId={}, conversationId={}, targetUserId={}",
-                        dispatchBo.getMessageId(), convId, uid, ex);
-            }
+        List<Long> memberIds = new ArrayList<>(members.length);
+        for (long m : members) {
+            memberIds.add(m);
+        }
+        // 大群读扩散：只推合并后的 {conversationId, lastSeq}，客户端走 CLIENT_PULL_MESSAGES 拉取
+        if (hintThreshold > 0 && memberIds.size() >= hintThreshold) {
+            conversationHintCoalescer.submit(convId, dispatchBo.getSeq(), memberIds);
+            return;
         }
+        // 批量解析路由 + 按节点聚合投递
+        deliveryService.deliverToMembers(dispatchBo, memberIds);
     }
 }
@@ -0,0 +1,223 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.mapper.MessageMapper;
+import com.ecamt35.messageservice.model.entity.Message;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消息组提交写入：
+ * 并发发送的消息进入队列，flusher 线程在批窗口内攒批（到达 batch-size 立即提交），一次多行 INSERT 落库；
+ * 批内出现唯一键冲突时整批回退为逐行插入，冲突行的 DuplicateKeyException 原样抛给对应调用方，
+ * 幂等语义与单行插入一致。
+ */
+@Slf4j
+@Component
+public class MessageGroupCommitWriter {
+
+    private record PendingWrite(Message message, CompletableFuture<Void> future) {
+    }
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean stopped;
+
+    @Resource
+    private MessageMapper messageMapper;
+
+    // 批窗口（毫秒），<=0 关闭组提交，直接单行插入
+    @Value("${message.persist.batch-window-millis:2}")
+    private long batchWindowMillis;
+    @Value("${message.persist.batch-size:200}")
+    private int batchSize;
+    // flusher 线程数，多个批可并行提交
+    @Value("${message.persist.flushers:2}")
+    private int flusherCount;
+
+    @PostConstruct
+    public void init() {
+        if (batchWindowMillis <= 0) {
+            return;
+        }
+        batchSize = Math.max(1, batchSize);
+        ThreadFactory factory = new DefaultThreadFactory("message-group-commit", true);
+        for (int i = 0; i < Math.max(1, flusherCount); i++) {
+            Thread t = factory.newThread(this::runFlusher);
+            flushers.add(t);
+            t.start();
+        }
+        log.info("Message group commit started, batchWindowMillis={}, batchSize={}, flushers={}",
+                batchWindowMillis, batchSize, flushers.size());
+    }
+
+    /**
+     * 持久化一条消息，阻塞到所在批提交完成（调用方为虚拟线程）
+     *
+     * @throws DuplicateKeyException 与单行插入相同的唯一键冲突
+     */
+    public void persist(Message msg) {
+        if (batchWindowMillis <= 0 || stopped) {
+            messageMapper.insert(msg);
+            return;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        PendingWrite w = new PendingWrite(msg, future);
+        queue.offer(w);
+        if (stopped && queue.remove(w)) {
+            // 停机期间入队，flusher 可能已退出，自行插入
+            insertOne(w);
+        }
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 窗口从批内第一条开始计时，攒满即提交
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remain = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remain <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remain, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("Message group commit flusher error", e);
+                for (PendingWrite w : batch) {
+                    w.future().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        if (batch.size() == 1) {
+            insertOne(batch.getFirst());
+            return;
+        }
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingWrite w : batch) {
+            messages.add(w.message());
+        }
+        try {
+            messageMapper.batchInsert(messages);
+            batches.increment();
+            rows.add(batch.size());
+            for (PendingWrite w : batch) {
+                w.future().complete(null);
+            }
+        } catch (DuplicateKeyException e) {
+            // 多行语句整体未生效，逐行重放以定位冲突行
+            fallbacks.increment();
+            log.info("Message batch insert hit duplicate key, fallback to per-row, size={}", batch.size());
+            for (PendingWrite w : batch) {
+                insertOne(w);
+            }
+        } catch (Exception e) {
+            for (PendingWrite w : batch) {
+                w.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void insertOne(PendingWrite w) {
+        try {
+            messageMapper.insert(w.message());
+            batches.increment();
+            rows.increment();
+            w.future().complete(null);
+        } catch (Exception e) {
+            w.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 已提交的消息行数
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * 已提交的批数（rows / batches 即平均批大小）
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * 因唯一键冲突回退逐行插入的批数
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * 停机：新请求改为直接插入，flusher 排空队列后退出
+     */
+    @PreDestroy
+    public void destroy() {
+        stopped = true;
+        for (Thread t : flushers) {
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        PendingWrite w;
+        while ((w = queue.poll()) != null) {
+            insertOne(w);
+        }
+        log.info("Message group commit stopped, rows={}, batches={}, fallbacks={}",
+                getRows(), getBatches(), getFallbacks());
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.model.entity.Message;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送幂等短期索引：im:msg:idem:{senderId}:{clientMsgId} -> messageId:convId:seq:sendTime
+ * <p>
+ * 消息落库后写入，TTL 覆盖客户端重试窗口；命中直接返回已有消息，未命中跳过 DB 幂等查询，
+ * 超出 TTL 的重复由 DB 唯一键（uk_sender_client_msg）兜底。
+ */
+@Slf4j
+@Component
+public class MessageIdempotencyIndex {
+
+    /**
+     * 索引不可用（关闭或 Redis 故障），调用方需回退 DB 查询
+     */
+    public static final Message UNAVAILABLE = new Message();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 索引 TTL（秒），<=0 关闭索引，每次发送走 DB 幂等查询
+    @Value("${message.idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private static String key(Long senderId, Long clientMsgId) {
+        return "im:msg:idem:" + senderId + ":" + clientMsgId;
+    }
+
+    /**
+     * 查询索引
+     *
+     * @return 已有消息（只含 id/conversationId/seq/sendTime）；未命中返回 null；不可用返回 {@link #UNAVAILABLE}
+     */
+    public Message find(Long senderId, Long clientMsgId) {
+        if (ttlSeconds <= 0) {
+            return UNAVAILABLE;
+        }
+        String raw;
+        try {
+            raw = stringRedisTemplate.opsForValue().get(key(senderId, clientMsgId));
+        } catch (Exception e) {
+            log.debug("Idempotency index unavailable, senderId={}, clientMsgId={}, err={}",
+                    senderId, clientMsgId, e.getMessage());
+            return UNAVAILABLE;
+        }
+        if (raw == null) {
+            return null;
+        }
+        String[] parts = raw.split(":");
+        if (parts.length != 4) {
+            return UNAVAILABLE;
+        }
+        try {
+            Message msg = new Message();
+            msg.setId(Long.parseLong(parts[0]));
+            msg.setConversationId(Long.parseLong(parts[1]));
+            msg.setSeq(Long.parseLong(parts[2]));
+            msg.setSendTime(Long.parseLong(parts[3]));
+            return msg;
+        } catch (NumberFormatException e) {
+            return UNAVAILABLE;
+        }
+    }
+
+    /**
+     * 记录已落库的消息，失败忽略（DB 唯一键兜底）
+     */
+    public void record(Long senderId, Long clientMsgId, Message msg) {
+        if (ttlSeconds <= 0 || msg == null || msg.getId() == null) {
+            return;
+        }
+        String value = msg.getId() + ":" + msg.getConversationId() + ":" + msg.getSeq() + ":" + msg.getSendTime();
+        try {
+            stringRedisTemplate.opsForValue().set(key(senderId, clientMsgId), value, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.debug("Record idempotency index failed, senderId={}, clientMsgId={}, err={}",
+                    senderId, clientMsgId, e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.ecamt35.messageservice.service;
 
+import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.mapper.ConversationMemberMapper;
 import com.ecamt35.messageservice.mapper.MessageMapper;
+import com.ecamt35.messageservice.model.bo.SeqRangeBo;
+import com.ecamt35.messageservice.model.dto.ClientPullMessagesDto;
 import com.ecamt35.messageservice.model.entity.Conversation;
 import com.ecamt35.messageservice.model.entity.ConversationMember;
 import com.ecamt35.messageservice.model.entity.Message;
+import com.ecamt35.messageservice.model.vo.PullMessagesBatchRespVo;
 import com.ecamt35.messageservice.model.vo.PullMessagesRespVo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -20,11 +30,14 @@ public class MessageService {
 
     private static final int DEFAULT_LIMIT = 50;
     private static final int MAX_LIMIT = 200;
+    // 批量拉取单次最多会话数
+    private static final int MAX_BATCH_CONVERSATIONS = 50;
 
     private final ConversationMemberMapper memberMapper;
     private final MessageMapper messageMapper;
     private final ConversationService conversationService;
     private final CursorService cursorService;
+    private final MessageTailCache messageTailCache;
 
     /**
      * 拉取消息（按 seq 游标），保证不因雪花 ID 乱序而漏。
@@ -77,6 +90,13 @@ public class MessageService {
             return resp;
         }
 
+        // 优先从会话尾部环读取：本页区间 (afterSeq, afterSeq + pageSize] ∩ (afterSeq, ub] 在环内完整时不查库
+        List<PullMessagesRespVo.MessageBriefVo> tail =
+                messageTailCache.rangeIfCovered(convId, afterSeq, Math.min(ub, afterSeq + pageSize));
+        if (tail != null) {
+            return pageResp(convId, afterSeq, ub, tail);
+        }
+
         // 按 seq 拉取区间消息
         List<Message> list = messageMapper.listBySeqRange(convId, afterSeq, ub, pageSize);
 
@@ -119,7 +139,179 @@ public class MessageService {
         }
 
         // 正常返回消息页
-        long next = afterSeq;
+        return pageResp(convId, afterSeq, ub, toBriefVos(list));
+    }
+
+    /**
+     * 批量拉取多个会话的消息页（登录首屏同步）：
+     * 会话批量读缓存、群成员身份一次查询、lastSeq 批量读取、各会话区间合并为一条 union all SQL；
+     * 空页纠偏同单会话拉取，只对需要纠偏的会话再批量查一次 max(seq) 与一次区间。
+     *
+     * @param userId 当前用户
+     * @param pulls  各会话的拉取参数（同 CLIENT_PULL_MESSAGES）
+     */
+    public PullMessagesBatchRespVo pullMessagesBatch(Long userId, List<ClientPullMessagesDto> pulls) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId is null");
+        }
+        if (pulls == null) {
+            throw new IllegalArgumentException("pulls is null");
+        }
+        if (pulls.size() > MAX_BATCH_CONVERSATIONS) {
+            throw new IllegalArgumentException("too many conversations, max " + MAX_BATCH_CONVERSATIONS);
+        }
+
+        // 同一会话只保留第一项
+        Map<Long, ClientPullMessagesDto> byConv = new LinkedHashMap<>();
+        for (ClientPullMessagesDto p : pulls) {
+            if (p == null || p.conversationId() == null) {
+                throw new IllegalArgumentException("conversationId is required");
+            }
+            byConv.putIfAbsent(p.conversationId(), p);
+        }
+
+        // 批量权限校验：单聊看 peer_a/peer_b，群聊一次查询 active 成员身份
+        Map<Long, Conversation> convs = byConv.isEmpty() ? Map.of() : conversationService.selectByIds(byConv.keySet());
+        List<Long> groupConvIds = new ArrayList<>();
+        for (Conversation c : convs.values()) {
+            if (c.getType() != null && c.getType() == 1) {
+                groupConvIds.add(c.getId());
+            }
+        }
+        Set<Long> activeGroups = new HashSet<>();
+        if (!groupConvIds.isEmpty()) {
+            List<Map<String, Object>> rows = memberMapper.batchFindReadSeqByUserAndConvIds(userId, groupConvIds);
+            if (rows != null) {
+                for (Map<String, Object> row : rows) {
+                    Long convId = Convert.toLong(row.get("convId"));
+                    if (convId != null) {
+                        activeGroups.add(convId);
+                    }
+                }
+            }
+        }
+
+        List<Long> denied = new ArrayList<>();
+        List<Long> needLastSeq = new ArrayList<>();
+        for (ClientPullMessagesDto p : byConv.values()) {
+            Conversation c = convs.get(p.conversationId());
+            boolean allowed = c != null && (c.getType() != null && c.getType() == 1
+                    ? activeGroups.contains(c.getId())
+                    : hasPermission(userId, c));
+            if (!allowed) {
+                denied.add(p.conversationId());
+                continue;
+            }
+            if (p.upperBoundSeq() == null || p.upperBoundSeq() < 0) {
+                needLastSeq.add(p.conversationId());
+            }
+        }
+        Map<Long, Long> lastSeqs = cursorService.batchGetLastSeq(needLastSeq);
+        Set<Long> ubFromRedis = new HashSet<>(needLastSeq);
+
+        Map<Long, PullMessagesRespVo> pages = new LinkedHashMap<>();
+        List<SeqRangeBo> ranges = new ArrayList<>();
+        for (ClientPullMessagesDto p : byConv.values()) {
+            Long convId = p.conversationId();
+            if (denied.contains(convId)) {
+                continue;
+            }
+            long afterSeq = (p.afterSeq() == null || p.afterSeq() < 0) ? 0L : p.afterSeq();
+            int pageSize = (p.limit() == null || p.limit() <= 0) ? DEFAULT_LIMIT : Math.min(p.limit(), MAX_LIMIT);
+            long ub = ubFromRedis.contains(convId) ? Math.max(0L, lastSeqs.getOrDefault(convId, 0L)) : p.upperBoundSeq();
+            // 先占位保持请求顺序
+            pages.put(convId, null);
+            if (afterSeq >= ub) {
+                pages.put(convId, emptyResp(convId, ub, afterSeq, -1));
+                continue;
+            }
+            ranges.add(new SeqRangeBo(convId, afterSeq, ub, pageSize));
+        }
+
+        // 一条 SQL 拉取全部区间
+        Map<Long, List<Message>> rows = listBySeqRanges(ranges);
+        List<SeqRangeBo> toCorrect = new ArrayList<>();
+        for (SeqRangeBo r : ranges) {
+            List<Message> list = rows.get(r.getConvId());
+            if (list != null && !list.isEmpty()) {
+                pages.put(r.getConvId(), pageResp(r.getConvId(), r.getAfterSeq(), r.getUpperBoundSeq(), toBriefVos(list)));
+            } else if (!ubFromRedis.contains(r.getConvId())) {
+                pages.put(r.getConvId(), emptyResp(r.getConvId(), r.getUpperBoundSeq(), r.getAfterSeq(), -1));
+            } else {
+                toCorrect.add(r);
+            }
+        }
+
+        // 尾部纠偏：Redis lastSeq 虚高导致的空页，批量用 DB max(seq) 回落上界后再查一次
+        if (!toCorrect.isEmpty()) {
+            Map<Long, Long> dbMax = new HashMap<>();
+            List<Long> ids = new ArrayList<>(toCorrect.size());
+            for (SeqRangeBo r : toCorrect) {
+                ids.add(r.getConvId());
+            }
+            List<Map<String, Object>> maxRows = messageMapper.batchFindMaxSeqByConvIds(ids);
+            if (maxRows != null) {
+                for (Map<String, Object> row : maxRows) {
+                    Long convId = Convert.toLong(row.get("convId"));
+                    Long maxSeq = Convert.toLong(row.get("maxSeq"));
+                    if (convId != null && maxSeq != null) {
+                        dbMax.put(convId, maxSeq);
+                    }
+                }
+            }
+
+            List<SeqRangeBo> retry = new ArrayList<>();
+            for (SeqRangeBo r : toCorrect) {
+                long effectiveUb = Math.min(r.getUpperBoundSeq(), dbMax.getOrDefault(r.getConvId(), 0L));
+                if (effectiveUb == r.getUpperBoundSeq()) {
+                    pages.put(r.getConvId(), emptyResp(r.getConvId(), r.getUpperBoundSeq(), r.getAfterSeq(), 400));
+                    continue;
+                }
+                r.setUpperBoundSeq(effectiveUb);
+                if (r.getAfterSeq() >= effectiveUb) {
+                    pages.put(r.getConvId(), emptyResp(r.getConvId(), effectiveUb, r.getAfterSeq(), 200));
+                    continue;
+                }
+                retry.add(r);
+            }
+
+            Map<Long, List<Message>> retryRows = listBySeqRanges(retry);
+            for (SeqRangeBo r : retry) {
+                List<Message> list = retryRows.get(r.getConvId());
+                if (list != null && !list.isEmpty()) {
+                    pages.put(r.getConvId(), pageResp(r.getConvId(), r.getAfterSeq(), r.getUpperBoundSeq(), toBriefVos(list)));
+                } else {
+                    pages.put(r.getConvId(), emptyResp(r.getConvId(), r.getUpperBoundSeq(), r.getAfterSeq(), 400));
+                }
+            }
+        }
+
+        PullMessagesBatchRespVo resp = new PullMessagesBatchRespVo();
+        resp.setPages(new ArrayList<>(pages.values()));
+        resp.setDeniedConversationIds(denied);
+        return resp;
+    }
+
+    private Map<Long, List<Message>> listBySeqRanges(List<SeqRangeBo> ranges) {
+        Map<Long, List<Message>> grouped = new HashMap<>();
+        if (ranges.isEmpty()) {
+            return grouped;
+        }
+        List<Message> list = messageMapper.listBySeqRanges(ranges);
+        if (list == null) {
+            return grouped;
+        }
+        for (Message m : list) {
+            grouped.computeIfAbsent(m.getConversationId(), k -> new ArrayList<>()).add(m);
+        }
+        // union all 不保证子查询之间及合并后的顺序，按 seq 重新排序
+        for (List<Message> l : grouped.values()) {
+            l.sort(Comparator.comparing(Message::getSeq));
+        }
+        return grouped;
+    }
+
+    private List<PullMessagesRespVo.MessageBriefVo> toBriefVos(List<Message> list) {
         List<PullMessagesRespVo.MessageBriefVo> vos = new ArrayList<>(list.size());
         for (Message m : list) {
             PullMessagesRespVo.MessageBriefVo vo = new PullMessagesRespVo.MessageBriefVo();
@@ -132,7 +324,14 @@ public class MessageService {
             vo.setContent(m.getContent());
             vo.setSendTime(m.getSendTime());
             vos.add(vo);
-            if (m.getSeq() != null) next = Math.max(next, m.getSeq());
+        }
+        return vos;
+    }
+
+    private PullMessagesRespVo pageResp(Long convId, Long afterSeq, Long ub, List<PullMessagesRespVo.MessageBriefVo> vos) {
+        long next = afterSeq;
+        for (PullMessagesRespVo.MessageBriefVo vo : vos) {
+            if (vo.getSeq() != null) next = Math.max(next, vo.getSeq());
         }
 
         PullMessagesRespVo resp = new PullMessagesRespVo();
@@ -165,6 +364,12 @@ public class MessageService {
         return false;
     }
 
+    private PullMessagesRespVo emptyResp(Long convId, Long ub, Long afterSeq, int retryAfterMs) {
+        PullMessagesRespVo resp = emptyResp(convId, ub, afterSeq);
+        resp.setRetryAfterMs(retryAfterMs);
+        return resp;
+    }
+
     private PullMessagesRespVo emptyResp(Long convId, Long ub, Long afterSeq) {
         PullMessagesRespVo resp = new PullMessagesRespVo();
         resp.setConversationId(convId);
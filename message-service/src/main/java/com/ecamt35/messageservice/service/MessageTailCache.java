@@ -0,0 +1,316 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.model.entity.Message;
+import com.ecamt35.messageservice.model.vo.PullMessagesRespVo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 会话尾部消息环（拉取加速）：
+ * - ZSET im:msg:tail:{convId}，score=seq，member=消息 JSON；消息落库后追加，超出 ring-size 淘汰最旧 seq
+ * - 拉取区间 (afterSeq, end] 在环内连续完整（条数 == end - afterSeq）才直接返回，否则回退 DB；
+ * 追加失败、未落库的 seq 空洞都会使区间不完整，因此不会返回缺消息的页
+ * - 内存记账按 convId 分片（accounting-shards），每个分片一组活跃度 ZSET / 各环字节数 Hash / 分片总字节数，
+ * 以 hash tag 落在同一 slot；追加只访问环 key，字节数变化与最近写入时间在本节点聚合后随淘汰周期按分片批量写入，
+ * 不让每条消息都写全局 key
+ * - 淘汰：每个分片按 max-memory-mb / 分片数 的预算从最久未写入的会话开始选择，超过 idle-seconds 未写入的直接选择；
+ * 脚本只维护记账并返回 convId，环 key 由本地 pipeline 删除
+ */
+@Slf4j
+@Component
+public class MessageTailCache {
+
+    private static final String RING_PREFIX = "im:msg:tail:";
+    private static final String ACCT_PREFIX = "im:msg:tail-acct:";
+
+    // 单次记账脚本最多携带的会话数
+    private static final int ACCT_FLUSH_BATCH = 500;
+
+    // 单个分片每次最多淘汰的环数，避免单个 Lua 执行过久
+    private static final int MAX_EVICT_PER_RUN = 500;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // 待写入 Redis 的记账：convId -> 聚合后的字节变化/重置标记/最近写入时间
+    private final ConcurrentMap<Long, PendingAcct> pendingAcct = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private ObjectMapper objectMapper;
+    @Resource(name = "msgTailAppendScript")
+    private DefaultRedisScript<List> msgTailAppendScript;
+    @Resource(name = "msgTailAcctFlushScript")
+    private DefaultRedisScript<Long> msgTailAcctFlushScript;
+    @Resource(name = "msgTailEvictScript")
+    private DefaultRedisScript<List> msgTailEvictScript;
+    @Resource(name = "virtualExecutor")
+    private ExecutorService virtualExecutor;
+
+    @Value("${message.tail-cache.enabled:true}")
+    private boolean enabled;
+    @Value("${message.tail-cache.ring-size:200}")
+    private int ringSize;
+    @Value("${message.tail-cache.max-memory-mb:256}")
+    private long maxMemoryMb;
+    @Value("${message.tail-cache.idle-seconds:1800}")
+    private long idleSeconds;
+    @Value("${message.tail-cache.accounting-shards:16}")
+    private int accountingShards;
+    @Value("${message.tail-cache.evict-interval-seconds:5}")
+    private long evictIntervalSeconds;
+    @Value("${message.tail-cache.stats-log-interval-seconds:60}")
+    private long statsLogIntervalSeconds;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Message tail cache disabled");
+            return;
+        }
+        ringSize = Math.max(1, ringSize);
+        accountingShards = Math.max(1, accountingShards);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("msg-tail-evict", true));
+        scheduler.scheduleWithFixedDelay(this::flushAndEvictQuietly,
+                evictIntervalSeconds, Math.max(1, evictIntervalSeconds), TimeUnit.SECONDS);
+        if (statsLogIntervalSeconds > 0) {
+            scheduler.scheduleAtFixedRate(this::logStats,
+                    statsLogIntervalSeconds, statsLogIntervalSeconds, TimeUnit.SECONDS);
+        }
+        log.info("Message tail cache started, ringSize={}, maxMemoryMb={}, idleSeconds={}, accountingShards={}",
+                ringSize, maxMemoryMb, idleSeconds, accountingShards);
+    }
+
+    /**
+     * 消息落库后异步追加到会话尾部环，失败忽略（拉取时区间不完整会回退 DB）
+     */
+    public void append(Message msg) {
+        if (!enabled || msg == null || msg.getConversationId() == null || msg.getSeq() == null) {
+            return;
+        }
+        try {
+            virtualExecutor.execute(() -> doAppend(msg));
+        } catch (RejectedExecutionException e) {
+            log.debug("Message tail append rejected, convId={}, seq={}", msg.getConversationId(), msg.getSeq());
+        }
+    }
+
+    /**
+     * 读取 (afterSeq, endSeq] 区间的消息
+     *
+     * @return 按 seq 升序的完整区间；环未完整覆盖该区间或不可用时返回 null，调用方回退 DB
+     */
+    public List<PullMessagesRespVo.MessageBriefVo> rangeIfCovered(Long convId, long afterSeq, long endSeq) {
+        if (!enabled || endSeq <= afterSeq || endSeq - afterSeq > ringSize) {
+            return null;
+        }
+        Set<String> raw;
+        try {
+            raw = stringRedisTemplate.opsForZSet().rangeByScore(RING_PREFIX + convId, afterSeq + 1, endSeq);
+        } catch (Exception e) {
+            log.debug("Message tail range failed, convId={}, err={}", convId, e.getMessage());
+            misses.increment();
+            return null;
+        }
+        if (raw == null || raw.size() != endSeq - afterSeq) {
+            misses.increment();
+            return null;
+        }
+        List<PullMessagesRespVo.MessageBriefVo> list = new ArrayList<>(raw.size());
+        try {
+            for (String json : raw) {
+                list.add(objectMapper.readValue(json, PullMessagesRespVo.MessageBriefVo.class));
+            }
+        } catch (Exception e) {
+            log.warn("Decode message tail entry failed, convId={}, err={}", convId, e.getMessage());
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return list;
+    }
+
+    private void doAppend(Message msg) {
+        PullMessagesRespVo.MessageBriefVo vo = new PullMessagesRespVo.MessageBriefVo();
+        vo.setId(msg.getId());
+        vo.setClientMsgId(msg.getClientMsgId());
+        vo.setConversationId(msg.getConversationId());
+        vo.setSeq(msg.getSeq());
+        vo.setSenderId(msg.getSenderId());
+        vo.setMsgType(msg.getMsgType());
+        vo.setContent(msg.getContent());
+        vo.setSendTime(msg.getSendTime());
+        Long convId = msg.getConversationId();
+        try {
+            List<?> r = stringRedisTemplate.execute(msgTailAppendScript,
+                    List.of(RING_PREFIX + convId),
+                    String.valueOf(msg.getSeq()),
+                    objectMapper.writeValueAsString(vo),
+                    String.valueOf(ringSize),
+                    String.valueOf(Math.max(1, idleSeconds)));
+            if (r == null || r.size() < 2) {
+                return;
+            }
+            long delta = Long.parseLong(String.valueOf(r.get(0)));
+            boolean reset = "1".equals(String.valueOf(r.get(1)));
+            PendingAcct acct = new PendingAcct(delta, reset, System.currentTimeMillis());
+            // 环重新创建时之前未写入的变化属于旧环，由重置一并清掉
+            pendingAcct.merge(convId, acct, (old, cur) -> cur.reset()
+                    ? cur
+                    : new PendingAcct(old.delta() + cur.delta(), old.reset(), Math.max(old.lastMillis(), cur.lastMillis())));
+        } catch (Exception e) {
+            log.debug("Message tail append failed, convId={}, seq={}, err={}",
+                    convId, msg.getSeq(), e.getMessage());
+        }
+    }
+
+    private void flushAndEvictQuietly() {
+        try {
+            flushAccounting();
+        } catch (Exception e) {
+            log.warn("Message tail accounting flush failed, err={}", e.getMessage());
+        }
+        try {
+            evict();
+        } catch (Exception e) {
+            log.warn("Message tail eviction failed, err={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 本节点聚合的记账按分片批量写入
+     */
+    private void flushAccounting() {
+        if (pendingAcct.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<String>> argsByShard = new HashMap<>();
+        for (Long convId : new ArrayList<>(pendingAcct.keySet())) {
+            PendingAcct acct = pendingAcct.remove(convId);
+            if (acct == null) {
+                continue;
+            }
+            List<String> args = argsByShard.computeIfAbsent(shardOf(convId), k -> new ArrayList<>());
+            args.add(String.valueOf(convId));
+            args.add(String.valueOf(acct.delta()));
+            args.add(acct.reset() ? "1" : "0");
+            args.add(String.valueOf(acct.lastMillis()));
+        }
+        for (Map.Entry<Integer, List<String>> e : argsByShard.entrySet()) {
+            List<String> keys = acctKeys(e.getKey());
+            List<String> args = e.getValue();
+            for (int i = 0; i < args.size(); i += ACCT_FLUSH_BATCH * 4) {
+                List<String> chunk = args.subList(i, Math.min(args.size(), i + ACCT_FLUSH_BATCH * 4));
+                stringRedisTemplate.execute(msgTailAcctFlushScript, keys, chunk.toArray());
+            }
+        }
+    }
+
+    /**
+     * 逐分片选择淘汰的会话，并 pipeline 删除其环
+     */
+    private void evict() {
+        long shardBudget = maxMemoryMb * 1024 * 1024 / accountingShards;
+        String idleBefore = String.valueOf(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleSeconds));
+        List<String> rings = new ArrayList<>();
+        for (int shard = 0; shard < accountingShards; shard++) {
+            List<?> evicted = stringRedisTemplate.execute(msgTailEvictScript,
+                    acctKeys(shard),
+                    String.valueOf(shardBudget),
+                    String.valueOf(MAX_EVICT_PER_RUN),
+                    idleBefore);
+            if (evicted == null) {
+                continue;
+            }
+            for (Object convId : evicted) {
+                rings.add(RING_PREFIX + convId);
+            }
+        }
+        if (rings.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String ring : rings) {
+                connection.keyCommands().del(ring.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        log.debug("Message tail rings evicted, count={}", rings.size());
+    }
+
+    private int shardOf(Long convId) {
+        return (int) Math.floorMod(convId, (long) accountingShards);
+    }
+
+    /**
+     * 分片记账 key：活跃度 ZSET / 各环字节数 Hash / 分片总字节数，{shard} 为 hash tag
+     */
+    private static List<String> acctKeys(int shard) {
+        String base = ACCT_PREFIX + "{" + shard + "}:";
+        return List.of(base + "active", base + "bytes", base + "total");
+    }
+
+    private void logStats() {
+        long h = hits.sumThenReset();
+        long m = misses.sumThenReset();
+        long total = h + m;
+        long bytes = 0;
+        try {
+            List<String> totalKeys = new ArrayList<>(accountingShards);
+            for (int shard = 0; shard < accountingShards; shard++) {
+                totalKeys.add(acctKeys(shard).get(2));
+            }
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(totalKeys);
+            if (values != null) {
+                for (String v : values) {
+                    bytes += v == null ? 0 : Long.parseLong(v);
+                }
+            }
+        } catch (Exception ignore) {
+            // 统计日志不影响主流程
+        }
+        log.info("Message tail cache stats, hits={}, misses={}, hitRate={}%, totalBytes={}, pendingAcct={}",
+                h, m, total == 0 ? 0 : h * 100 / total, bytes, pendingAcct.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                flushAccounting();
+            } catch (Exception e) {
+                log.warn("Message tail accounting drain failed, left={}, err={}", pendingAcct.size(), e.getMessage());
+            }
+        }
+    }
+
+    private record PendingAcct(long delta, boolean reset, long lastMillis) {
+    }
+}
@@ -4,6 +4,7 @@ import com.alibaba.nacos.api.PropertyKeyConst;
 import com.alibaba.nacos.api.exception.NacosException;
 import com.alibaba.nacos.api.naming.NamingFactory;
 import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.ecamt35.messageservice.config.NacosManualRegistrationProperties;
 import jakarta.annotation.PreDestroy;
@@ -14,10 +15,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Nacos 手动注册服务。
@@ -36,6 +42,11 @@ public class NacosManualRegistrationService {
     private volatile NamingService namingService;
     private volatile RegisteredInstance registeredInstance;
 
+    /**
+     * 实例列表监听者：注册成功后订阅本服务的健康实例，回调其 metadata.nodeName 列表
+     */
+    private final List<Consumer<List<String>>> nodeListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Netty 端口绑定成功后执行 Nacos 注册。
      *
@@ -64,6 +75,58 @@ public class NacosManualRegistrationService {
         doRegisterWithRetry(instance);
     }
 
+    /**
+     * 添加实例列表监听（需在 Netty 绑定、Nacos 注册之前添加）。
+     *
+     * @param listener 回调健康实例的 nodeName 列表
+     */
+    public void addNodeListener(Consumer<List<String>> listener) {
+        nodeListeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+        // 已注册完成后才添加的监听单独订阅
+        NamingService naming = namingService;
+        RegisteredInstance instance = registeredInstance;
+        if (registered.get() && naming != null && instance != null) {
+            subscribeNodes(naming, instance, List.of(listener));
+        }
+    }
+
+    /**
+     * 订阅本服务实例变化，只保留健康且启用的实例的 metadata.nodeName。
+     * 订阅失败不影响注册结果。
+     */
+    private void subscribeNodes(NamingService naming, RegisteredInstance instance, List<Consumer<List<String>>> listeners) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        try {
+            naming.subscribe(instance.serviceName(), instance.group(), List.of(instance.clusterName()), event -> {
+                if (!(event instanceof NamingEvent namingEvent)) {
+                    return;
+                }
+                List<String> nodes = new ArrayList<>();
+                for (Instance i : namingEvent.getInstances()) {
+                    Map<String, String> metadata = i.getMetadata();
+                    String nodeName = metadata == null ? null : trimToNull(metadata.get("nodeName"));
+                    if (i.isHealthy() && i.isEnabled() && nodeName != null) {
+                        nodes.add(nodeName);
+                    }
+                }
+                for (Consumer<List<String>> listener : listeners) {
+                    try {
+                        listener.accept(nodes);
+                    } catch (Exception ex) {
+                        log.warn("Nacos node listener failed: {}", ex.getMessage());
+                    }
+                }
+            });
+            log.info("Nacos instance subscription started, service={}, group={}, cluster={}",
+                    instance.serviceName(), instance.group(), instance.clusterName());
+        } catch (NacosException ex) {
+            log.warn("Nacos instance subscription failed, service={}, reason={}",
+                    instance.serviceName(), buildNacosErrorReason(ex));
+        }
+    }
+
     /**
      * 应用关闭时执行 Nacos 注销，避免脏实例残留。
      */
@@ -157,6 +220,7 @@ public class NacosManualRegistrationService {
                         instance.port(),
                         instance.ephemeral()
                 );
+                subscribeNodes(naming, instance, List.copyOf(nodeListeners));
                 return;
             } catch (Exception ex) {
                 lastError = ex;
@@ -0,0 +1,74 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.constant.RelationCacheKeyConstant;
+import com.ecamt35.messageservice.model.bo.PairPermissionBo;
+import com.ecamt35.messageservice.util.RedisCacheClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 私聊发送鉴权快路径：
+ * 按 (senderId, receiverId) 缓存黑名单/好友判定与已确认成员关系的私聊会话ID，
+ * 稳态私聊发送只需一次缓存读取；缓存 miss 时才走完整链路（含会话创建与成员修复事务）。
+ * <p>
+ * 失效：拉黑/取消拉黑、好友建立/删除时在事务提交后删除双向快照；
+ * 陌生人开关不进快照（非好友时实时读隐私缓存），隐私变更无需失效快照。
+ */
+@Service
+@RequiredArgsConstructor
+public class PrivateSendPermissionService {
+
+    private static final Duration PAIR_PERMISSION_TTL = Duration.ofDays(1);
+
+    private final RedisCacheClient cacheClient;
+    private final ConversationService conversationService;
+    private final BlacklistRelationService blacklistRelationService;
+    private final FriendRelationService friendRelationService;
+    private final PrivacyRelationService privacyRelationService;
+
+    /**
+     * 解析私聊会话ID并校验发送权限
+     *
+     * @return 私聊会话ID
+     * @throws IllegalStateException 被拉黑，或非好友且对方关闭陌生人私聊
+     */
+    public Long resolveConversationIdOrThrow(Long senderId, Long receiverId) {
+        PairPermissionBo perm = cacheClient.getOrLoadById(
+                RelationCacheKeyConstant.PAIR_PERMISSION_PREFIX,
+                senderId + ":" + receiverId,
+                PAIR_PERMISSION_TTL,
+                PairPermissionBo.class,
+                ignore -> loadPermission(senderId, receiverId)
+        );
+
+        // 私聊权限链路：先黑名单，再好友，最后陌生人开关（默认关闭）
+        if (Boolean.TRUE.equals(perm.getBlocked())) {
+            throw new IllegalStateException("blocked by receiver");
+        }
+        if (!Boolean.TRUE.equals(perm.getMutualFriend())
+                && !privacyRelationService.isAllowStrangerConversation(receiverId)) {
+            throw new IllegalStateException("not friends and stranger chat disabled");
+        }
+        if (perm.getConversationId() == null) {
+            // 快照生成时不允许发送（陌生人开关后来打开）：走完整链路，下一次发送重新生成快照
+            cacheClient.evict(RelationCacheKeyConstant.pairPermissionKey(senderId, receiverId));
+            return conversationService.getOrCreatePrivateConversationIdOrThrow(senderId, receiverId);
+        }
+        return perm.getConversationId();
+    }
+
+    /**
+     * 快照回源：判定关系，允许发送时走完整链路确保会话存在且双方成员 active
+     */
+    private PairPermissionBo loadPermission(Long senderId, Long receiverId) {
+        boolean blocked = blacklistRelationService.isBlacklisted(receiverId, senderId);
+        boolean mutualFriend = !blocked && friendRelationService.isMutualFriend(senderId, receiverId);
+        Long convId = null;
+        if (!blocked && (mutualFriend || privacyRelationService.isAllowStrangerConversation(receiverId))) {
+            convId = conversationService.getOrCreatePrivateConversationIdOrThrow(senderId, receiverId);
+        }
+        return new PairPermissionBo(convId, blocked, mutualFriend);
+    }
+}
@@ -0,0 +1,345 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.mapper.ConversationMemberMapper;
+import com.ecamt35.messageservice.model.bo.ReadCursorBo;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已读游标 write-behind：
+ * - ACK_READ 只推进 Redis（im:read:{userId}），DB 更新在本地按 (userId, convId) 合并，只保留最大 readSeq
+ * - 按周期或积压达到 batch-size 时 flush，一次 flush 按批执行多行 greatest() 更新
+ * - 推进 Redis 时同时登记到本节点待落库集合 im:read:dirty:{node}（ZSET，score=推进时间），
+ * flush 成功后裁剪；节点崩溃后同名节点重启时从该集合 + Redis 游标重建并补写 DB
+ * - 停机：排空所有待落库游标
+ */
+@Slf4j
+@Component
+public class ReadCursorWriteBehind {
+
+    // flush 成功后只裁剪早于 flush 开始时刻 - 该余量的登记，覆盖 Redis 推进与本地合并之间的间隙
+    private static final long DIRTY_TRIM_MARGIN_MILLIS = 5_000L;
+    // 崩溃恢复失败后的重试间隔
+    private static final long RECOVERY_RETRY_MILLIS = 30_000L;
+
+    private final ConcurrentMap<String, ReadCursorBo> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+    // 崩溃恢复完成前只裁剪恢复起点之后（本进程登记）的成员，避免恢复尚未读取的登记被删除
+    private volatile boolean recovered;
+    // 恢复起点：score 不大于它的成员为上次运行遗留，由 recover 补写
+    private volatile long recoveryFloor;
+    private final AtomicBoolean recovering = new AtomicBoolean();
+    private volatile long nextRecoveryMillis;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private ConversationMemberMapper memberMapper;
+    @Resource(name = "virtualExecutor")
+    private ExecutorService virtualExecutor;
+
+    @Value("${node-name}")
+    private String nodeName;
+    @Value("${message.read-cursor.flush-interval-millis:1000}")
+    private long flushIntervalMillis;
+    @Value("${message.read-cursor.batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    public void init() {
+        batchSize = Math.max(1, batchSize);
+        recoveryFloor = System.currentTimeMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("read-cursor-flush", true));
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, Math.max(10, flushIntervalMillis), TimeUnit.MILLISECONDS);
+        startRecovery();
+        log.info("Read cursor write-behind started, flushIntervalMillis={}, batchSize={}, dirtyKey={}",
+                flushIntervalMillis, batchSize, dirtyKey());
+    }
+
+    /**
+     * 本节点待落库集合 key
+     */
+    public String dirtyKey() {
+        return "im:read:dirty:" + nodeName;
+    }
+
+    /**
+     * 待落库集合成员
+     */
+    public static String dirtyMember(Long userId, Long convId) {
+        return userId + ":" + convId;
+    }
+
+    /**
+     * 提交一次已推进的已读游标（Redis 已生效），同 (userId, convId) 合并取最大值
+     */
+    public void offer(Long userId, Long convId, long readSeq) {
+        if (userId == null || convId == null) {
+            return;
+        }
+        offered.increment();
+        pending.merge(dirtyMember(userId, convId), new ReadCursorBo(userId, convId, readSeq),
+                (a, b) -> a.getReadSeq() >= b.getReadSeq() ? a : b);
+        if (pending.size() >= batchSize && !flushLock.isLocked()) {
+            try {
+                virtualExecutor.execute(() -> {
+                    if (flushLock.tryLock()) {
+                        try {
+                            flush();
+                        } finally {
+                            flushLock.unlock();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 交给周期 flush
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        flushLock.lock();
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Read cursor flush failed", e);
+        } finally {
+            flushLock.unlock();
+        }
+        // 恢复失败时由周期任务重试，直到成功
+        if (!recovered && System.currentTimeMillis() >= nextRecoveryMillis) {
+            startRecovery();
+        }
+    }
+
+    private void startRecovery() {
+        if (!recovering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            virtualExecutor.execute(() -> {
+                try {
+                    recover();
+                } finally {
+                    recovering.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recovering.set(false);
+            nextRecoveryMillis = System.currentTimeMillis() + RECOVERY_RETRY_MILLIS;
+            log.warn("Read cursor recovery not started, executor rejected");
+        }
+    }
+
+    /**
+     * 排空待落库游标，调用方持有 flushLock
+     *
+     * @return 是否全部写入成功
+     */
+    private boolean flush() {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        long startMillis = System.currentTimeMillis();
+        List<ReadCursorBo> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<String> it = pending.keySet().iterator();
+        while (it.hasNext()) {
+            ReadCursorBo bo = pending.remove(it.next());
+            if (bo == null) {
+                continue;
+            }
+            batch.add(bo);
+            if (batch.size() >= batchSize) {
+                if (!writeBatch(batch)) {
+                    return false;
+                }
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty() && !writeBatch(batch)) {
+            return false;
+        }
+        trimDirty(startMillis - DIRTY_TRIM_MARGIN_MILLIS);
+        return true;
+    }
+
+    /**
+     * 一次多行 greatest() 更新，失败时合并回待落库表等待下次 flush
+     */
+    private boolean writeBatch(List<ReadCursorBo> batch) {
+        try {
+            memberMapper.batchAdvanceReadCursor(batch);
+            written.add(batch.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Read cursor batch update failed, size={}, err={}", batch.size(), e.getMessage());
+            for (ReadCursorBo bo : batch) {
+                pending.merge(dirtyMember(bo.getUserId(), bo.getConvId()), bo,
+                        (a, b) -> a.getReadSeq() >= b.getReadSeq() ? a : b);
+            }
+            return false;
+        }
+    }
+
+    private void trimDirty(long maxScore) {
+        // 未恢复完成时保留恢复起点及之前的遗留成员，只裁剪本进程登记的部分
+        double minScore = recovered ? Double.NEGATIVE_INFINITY : recoveryFloor + 1;
+        if (maxScore < minScore) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().removeRangeByScore(dirtyKey(), minScore, maxScore);
+        } catch (Exception e) {
+            // 下次 flush 再裁剪，重复补写 DB 由 greatest() 保证幂等
+            log.debug("Trim read cursor dirty set failed, err={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 崩溃恢复：把上次运行遗留在待落库集合中的游标按 Redis 当前值补写 DB。
+     * 恢复期间被再次推进的成员 score 会更新到恢复起点之后，既不会被本次裁剪，也会经由本地合并正常落库。
+     * 失败时由周期任务每 {@link #RECOVERY_RETRY_MILLIS} 重试。
+     */
+    private void recover() {
+        long recoverStart = recoveryFloor;
+        String key = dirtyKey();
+        long offset = 0;
+        long total = 0;
+        try {
+            while (true) {
+                Set<String> members = stringRedisTemplate.opsForZSet()
+                        .rangeByScore(key, Double.NEGATIVE_INFINITY, recoverStart, offset, batchSize);
+                if (members == null || members.isEmpty()) {
+                    break;
+                }
+                List<ReadCursorBo> cursors = loadFromRedis(new ArrayList<>(members));
+                if (!cursors.isEmpty()) {
+                    memberMapper.batchAdvanceReadCursor(cursors);
+                    total += cursors.size();
+                }
+                if (members.size() < batchSize) {
+                    break;
+                }
+                offset += members.size();
+            }
+            stringRedisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, recoverStart);
+            recovered = true;
+            if (total > 0) {
+                log.info("Read cursor recovered from redis, key={}, count={}", key, total);
+            }
+        } catch (Exception e) {
+            // 遗留成员保留不裁剪，周期任务稍后重试
+            nextRecoveryMillis = System.currentTimeMillis() + RECOVERY_RETRY_MILLIS;
+            log.error("Read cursor recovery failed, key={}, recovered={}", key, total, e);
+        }
+    }
+
+    /**
+     * pipeline HGET im:read:{userId} convId
+     */
+    private List<ReadCursorBo> loadFromRedis(List<String> members) {
+        List<Long> userIds = new ArrayList<>(members.size());
+        List<Long> convIds = new ArrayList<>(members.size());
+        for (String m : members) {
+            int idx = m.indexOf(':');
+            if (idx <= 0) {
+                continue;
+            }
+            try {
+                Long userId = Long.parseLong(m.substring(0, idx));
+                Long convId = Long.parseLong(m.substring(idx + 1));
+                userIds.add(userId);
+                convIds.add(convId);
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        List<ReadCursorBo> result = new ArrayList<>(userIds.size());
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        RedisSerializer<String> serializer = RedisSerializer.string();
+        List<Object> values = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < userIds.size(); i++) {
+                connection.hashCommands().hGet(
+                        serializer.serialize(CursorService.readHashKey(userIds.get(i))),
+                        serializer.serialize(String.valueOf(convIds.get(i))));
+            }
+            return null;
+        });
+        for (int i = 0; i < userIds.size() && i < values.size(); i++) {
+            Object v = values.get(i);
+            if (v == null) {
+                // 游标已过期，DB 已是唯一来源
+                continue;
+            }
+            try {
+                result.add(new ReadCursorBo(userIds.get(i), convIds.get(i), Long.parseLong(String.valueOf(v))));
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 已提交的游标推进次数
+     */
+    public long getOffered() {
+        return offered.sum();
+    }
+
+    /**
+     * 实际写入 DB 的行数（offered / written 即合并倍率）
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * 停机：停止周期任务并排空待落库游标
+     */
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flushLock.lock();
+        try {
+            if (!flush()) {
+                log.warn("Read cursor drain incomplete, left={}, will be recovered from {} on restart",
+                        pending.size(), dirtyKey());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        log.info("Read cursor write-behind stopped, offered={}, written={}", getOffered(), getWritten());
+    }
+}
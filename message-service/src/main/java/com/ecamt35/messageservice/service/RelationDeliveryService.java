@@ -3,11 +3,10 @@ package com.ecamt35.messageservice.service;
 import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.model.bo.RelationPushBo;
 import com.ecamt35.messageservice.model.vo.PushVo;
-import com.ecamt35.messageservice.util.BusinessException;
+import com.ecamt35.messageservice.websocket.PushFrameEncoder;
+import com.ecamt35.messageservice.websocket.PushFrameEncoder.SharedPush;
 import com.ecamt35.messageservice.websocket.UserChannelRegistry;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -26,18 +25,18 @@ public class RelationDeliveryService {
     private final UserChannelRegistry userChannelRegistry;
     private final RabbitTemplate rabbitTemplate;
     private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final PushFrameEncoder pushFrameEncoder;
     @Value("${node-name}")
     private String nodeName;
 
     public RelationDeliveryService(UserChannelRegistry userChannelRegistry,
                                    RabbitTemplate rabbitTemplate,
                                    @Qualifier("redisTemplate") RedisTemplate<String, Object> redisTemplate,
-                                   ObjectMapper objectMapper) {
+                                   PushFrameEncoder pushFrameEncoder) {
         this.userChannelRegistry = userChannelRegistry;
         this.rabbitTemplate = rabbitTemplate;
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.pushFrameEncoder = pushFrameEncoder;
     }
 
     /**
@@ -47,9 +46,19 @@ public class RelationDeliveryService {
         Long targetUserId = pushBo.getTargetUserId();
         if (targetUserId == null) return;
 
+        // 同一事件对该用户所有本地设备只序列化一次
+        SharedPush payload = pushFrameEncoder.encode(new PushVo(pushBo.getPacketType(), pushBo.getData()));
+        try {
+            deliverToUserDevices(pushBo, targetUserId, payload);
+        } finally {
+            payload.release();
+        }
+    }
+
+    private void deliverToUserDevices(RelationPushBo pushBo, Long targetUserId, SharedPush payload) {
         String receiverDeviceId = Convert.toStr(pushBo.getReceiverDeviceId());
         if (receiverDeviceId != null && !receiverDeviceId.isBlank()) {
-            deliverToOneDevice(targetUserId, receiverDeviceId, pushBo);
+            deliverToOneDevice(targetUserId, receiverDeviceId, pushBo, payload);
             return;
         }
 
@@ -62,11 +71,11 @@ public class RelationDeliveryService {
         for (Map.Entry<Object, Object> entry : deviceTokenMap.entrySet()) {
             String deviceId = Convert.toStr(entry.getKey());
             if (deviceId == null || deviceId.isBlank()) continue;
-            deliverToOneDevice(targetUserId, deviceId, pushBo);
+            deliverToOneDevice(targetUserId, deviceId, pushBo, payload);
         }
     }
 
-    private void deliverToOneDevice(Long targetUserId, String deviceId, RelationPushBo pushBo) {
+    private void deliverToOneDevice(Long targetUserId, String deviceId, RelationPushBo pushBo, SharedPush payload) {
         String wsOnlineKey = userChannelRegistry.wsOnlineKey(targetUserId, deviceId);
 
         Object nodeObj = redisTemplate.opsForHash().get(wsOnlineKey, "node");
@@ -79,15 +88,8 @@ public class RelationDeliveryService {
         String sessionId = Convert.toStr(sidObj);
 
         if (nodeName.equals(node)) {
-            String pushJson;
-            try {
-                pushJson = objectMapper.writeValueAsString(new PushVo(pushBo.getPacketType(), pushBo.getData()));
-            } catch (Exception e) {
-                throw new BusinessException(e.getMessage());
-            }
-
             Channel ch = userChannelRegistry.getRegisteredChannel(targetUserId, deviceId);
-            if (ch == null || !ch.isActive() || !ch.isWritable()) return;
+            if (ch == null || !ch.isActive()) return;
 
             Boolean reg = ch.attr(UserChannelRegistry.REGISTERED_KEY).get();
             if (reg == null || !reg) return;
@@ -97,7 +99,7 @@ public class RelationDeliveryService {
                 return;
             }
 
-            ch.eventLoop().execute(() -> ch.writeAndFlush(new TextWebSocketFrame(pushJson)));
+            pushFrameEncoder.writeShared(ch, payload);
             return;
         }
 
@@ -0,0 +1,76 @@
+package com.ecamt35.messageservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 一致性哈希工具
+ */
+public final class ConsistentHash {
+
+    private ConsistentHash() {
+    }
+
+    /**
+     * Jump Consistent Hash（Lamping &amp; Veach）：
+     * 无需虚拟节点环，O(log n)；桶数由 n 变为 n+1 时只有约 1/(n+1) 的 key 迁移
+     *
+     * @return [0, buckets) 内的桶号
+     */
+    public static int jump(long key, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("buckets must be positive");
+        }
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    /**
+     * Rendezvous（HRW）哈希：对每个节点计算 score(key, node)，取最大者。
+     * 节点增减时只有归属于变化节点的 key 迁移，适合节点名列表（如注册中心实例）选主
+     *
+     * @return 选中的节点，nodes 为空时返回 null
+     */
+    public static String rendezvous(long key, List<String> nodes) {
+        String best = null;
+        long bestScore = 0;
+        for (String node : nodes) {
+            long score = fmix64(key ^ fnv1a64(node));
+            // 无符号比较，score 相同按节点名定序，保证各节点结果一致
+            if (best == null
+                    || Long.compareUnsigned(score, bestScore) > 0
+                    || (score == bestScore && node.compareTo(best) < 0)) {
+                best = node;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static long fnv1a64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * MurmurHash3 64 位终结混合
+     */
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
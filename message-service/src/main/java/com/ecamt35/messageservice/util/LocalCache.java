@@ -0,0 +1,286 @@
+package com.ecamt35.messageservice.util;
+
+import com.ecamt35.messageservice.config.LocalCacheProperties;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RedisCacheClient 的进程内 L1：
+ * 1) 按 key 前缀分区，每个分区独立的条目上限（分段 LRU）与 TTL
+ * 2) evict 时本节点同步失效，并通过 Redis pub/sub 广播给其他节点
+ * 3) 失效代次：回填前记录分区代次，期间发生过失效则放弃回填，避免旧值在失效后写回 L1
+ * <p>
+ * 分段锁使用 ReentrantLock，避免虚拟线程在 synchronized 上 pin 住载体线程。
+ */
+@Slf4j
+public class LocalCache {
+
+    /**
+     * L1 中的空值占位（与 Redis 空值占位语义一致）
+     */
+    public static final Object NULL_VALUE = new Object();
+
+    private static final int SEGMENTS = 16;
+
+    /**
+     * 失效广播中多个 key 的分隔符
+     */
+    private static final String KEY_SEPARATOR = "\n";
+
+    private final List<Tier> tiers;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String channel;
+    private ScheduledExecutorService statsScheduler;
+
+    public LocalCache(LocalCacheProperties props, StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.channel = props.getInvalidationChannel();
+        List<Tier> list = new ArrayList<>();
+        for (LocalCacheProperties.Tier t : props.getTiers()) {
+            if (t.getPrefix() == null || t.getPrefix().isBlank() || t.getMaxSize() <= 0 || t.getTtlSeconds() <= 0) {
+                throw new IllegalArgumentException("Invalid L1 cache tier, prefix=" + t.getPrefix());
+            }
+            list.add(new Tier(t.getPrefix(), t.getMaxSize(), TimeUnit.SECONDS.toNanos(t.getTtlSeconds())));
+        }
+        // 最长前缀优先匹配
+        list.sort(Comparator.comparingInt((Tier t) -> t.prefix.length()).reversed());
+        this.tiers = List.copyOf(list);
+        if (props.getStatsLogIntervalSeconds() > 0 && !tiers.isEmpty()) {
+            statsScheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("l1-cache-stats", true));
+            statsScheduler.scheduleAtFixedRate(this::logStats,
+                    props.getStatsLogIntervalSeconds(), props.getStatsLogIntervalSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * key 所属分区的失效代次，key 不进 L1 时返回 -1
+     */
+    public long generation(String key) {
+        Tier tier = tierOf(key);
+        return tier == null ? -1 : tier.generation.get();
+    }
+
+    /**
+     * 查询 L1
+     *
+     * @return 缓存值；{@link #NULL_VALUE} 表示缓存的空值；未命中或 key 不进 L1 返回 null
+     */
+    public Object get(String key) {
+        Tier tier = tierOf(key);
+        if (tier == null) {
+            return null;
+        }
+        Object v = tier.segment(key).get(key, System.nanoTime());
+        if (v == null) {
+            tier.misses.increment();
+        } else {
+            tier.hits.increment();
+        }
+        return v;
+    }
+
+    /**
+     * 回填 L1
+     *
+     * @param generation 读 L2 / 回源前通过 {@link #generation(String)} 取得的代次
+     */
+    public void put(String key, Object value, long generation) {
+        Tier tier = tierOf(key);
+        if (tier == null || generation < 0) {
+            return;
+        }
+        tier.segment(key).put(key, value == null ? NULL_VALUE : value, generation);
+    }
+
+    /**
+     * 失效本节点 L1，并广播给其他节点
+     */
+    public void invalidate(Collection<String> keys) {
+        boolean any = false;
+        for (String key : keys) {
+            any |= invalidateLocal(key);
+        }
+        if (!any) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(channel, String.join(KEY_SEPARATOR, keys));
+        } catch (Exception e) {
+            // 广播失败时其他节点依赖 L1 TTL 收敛
+            log.warn("Publish L1 invalidation failed, keys={}, err={}", keys, e.getMessage());
+        }
+    }
+
+    /**
+     * 处理其他节点（含本节点自身）的失效广播
+     */
+    public void onInvalidationMessage(String body) {
+        if (body == null || body.isEmpty()) {
+            return;
+        }
+        for (String key : body.split(KEY_SEPARATOR)) {
+            invalidateLocal(key);
+        }
+    }
+
+    /**
+     * @return key 是否属于某个 L1 分区
+     */
+    private boolean invalidateLocal(String key) {
+        Tier tier = tierOf(key);
+        if (tier == null) {
+            return false;
+        }
+        tier.generation.incrementAndGet();
+        tier.segment(key).remove(key);
+        tier.invalidations.increment();
+        return true;
+    }
+
+    private Tier tierOf(String key) {
+        for (Tier t : tiers) {
+            if (key.startsWith(t.prefix)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    private void logStats() {
+        for (Tier t : tiers) {
+            long hits = t.hits.sumThenReset();
+            long misses = t.misses.sumThenReset();
+            long total = hits + misses;
+            log.info("L1 cache stats, prefix={}, size={}, hits={}, misses={}, hitRate={}%, evictions={}, expirations={}, invalidations={}",
+                    t.prefix, t.size(), hits, misses, total == 0 ? 0 : hits * 100 / total,
+                    t.evictions.sumThenReset(), t.expirations.sumThenReset(), t.invalidations.sumThenReset());
+        }
+    }
+
+    public void shutdown() {
+        if (statsScheduler != null) {
+            statsScheduler.shutdownNow();
+        }
+    }
+
+    private static final class Tier {
+        private final String prefix;
+        private final long ttlNanos;
+        private final Segment[] segments = new Segment[SEGMENTS];
+        private final AtomicLong generation = new AtomicLong();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+
+        private Tier(String prefix, int maxSize, long ttlNanos) {
+            this.prefix = prefix;
+            this.ttlNanos = ttlNanos;
+            int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new Segment(this, perSegment);
+            }
+        }
+
+        private Segment segment(String key) {
+            int h = key.hashCode();
+            return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+        }
+
+        private int size() {
+            int n = 0;
+            for (Segment s : segments) {
+                n += s.size();
+            }
+            return n;
+        }
+    }
+
+    private record Entry(Object value, long expireAtNanos) {
+    }
+
+    private static final class Segment {
+        private final Tier tier;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> map;
+
+        private Segment(Tier tier, int maxSize) {
+            this.tier = tier;
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > maxSize) {
+                        tier.evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Object get(String key, long now) {
+            lock.lock();
+            try {
+                Entry e = map.get(key);
+                if (e == null) {
+                    return null;
+                }
+                if (now - e.expireAtNanos() >= 0) {
+                    map.remove(key);
+                    tier.expirations.increment();
+                    return null;
+                }
+                return e.value();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(String key, Object value, long generation) {
+            lock.lock();
+            try {
+                // 回填期间发生过失效，放弃回填（代次在锁外递增，这里的检查与 remove 在同一把锁内串行）
+                if (tier.generation.get() != generation) {
+                    return;
+                }
+                map.put(key, new Entry(value, System.nanoTime() + tier.ttlNanos));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(String key) {
+            lock.lock();
+            try {
+                map.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecamt35.messageservice.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 逻辑过期缓存值：expireAt 之后仍可读到旧值，由一次后台刷新替换。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LogicalExpireValue {
+    private Object data;
+    /**
+     * 逻辑过期时间戳（毫秒）
+     */
+    private Long expireAt;
+}
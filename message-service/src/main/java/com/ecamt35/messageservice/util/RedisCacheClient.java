@@ -5,11 +5,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.util.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -19,8 +32,10 @@ import java.util.function.Supplier;
  * 通用 Redis 缓存客户端
  * 1) Cache-Aside：先查缓存，miss 再回源，回填缓存
  * 2) 防穿透：空值 / 空集合占位（短 TTL）
- * 3) 防击穿：分布式锁 + double-check（锁前/锁后都检查缓存）
+ * 3) 防击穿：本节点 single-flight 合并并发 miss，跨节点分布式锁 + double-check（锁前/锁后都检查缓存）；
+ * 热点 key 可用逻辑过期（过期后返回旧值 + 单次后台刷新）
  * 4) 防雪崩：TTL 抖动（jitter）
+ * 5) 可选进程内 L1（{@link LocalCache}）：按 key 前缀启用，evict 时跨节点广播失效
  * <p>
  * 注意：
  * - 传入的 key 必须是“业务完整 key”
@@ -53,18 +68,50 @@ public class RedisCacheClient {
     private final RedissonClient redissonClient;
     private final ObjectMapper objectMapper;
     private final RedisCachePropertiesConfig props;
+    private final DefaultRedisScript<Long> setContainsScript;
+
+    /**
+     * 逻辑过期 key 的后台刷新执行器
+     */
+    private final Executor refreshExecutor;
+
+    /**
+     * 本节点进行中的回源（single-flight）
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点进行中的逻辑过期刷新
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 可选的进程内 L1，未设置时所有读请求直达 Redis
+     */
+    private LocalCache localCache;
 
     public RedisCacheClient(RedisTemplate<String, Object> redisTemplate,
                             RedissonClient redissonClient,
                             ObjectMapper objectMapper,
-                            RedisCachePropertiesConfig props) {
+                            RedisCachePropertiesConfig props,
+                            DefaultRedisScript<Long> setContainsScript,
+                            Executor refreshExecutor) {
         this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
         this.redissonClient = Objects.requireNonNull(redissonClient, "redissonClient must not be null");
         this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
         this.props = Objects.requireNonNull(props, "props must not be null");
+        this.setContainsScript = Objects.requireNonNull(setContainsScript, "setContainsScript must not be null");
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor, "refreshExecutor must not be null");
         validate(props);
     }
 
+    /**
+     * 启用进程内 L1
+     */
+    public void setLocalCache(LocalCache localCache) {
+        this.localCache = localCache;
+    }
+
     /**
      * 主键查询 value 缓存
      * <p>
@@ -80,6 +127,26 @@ public class RedisCacheClient {
                                    Function<ID, R> loader) {
 
         final String key = buildKey(keyPrefix, String.valueOf(id));
+        if (localCache == null) {
+            return loadById(key, id, ttl, type, loader);
+        }
+
+        // 0) 查 L1
+        Object local = localCache.get(key);
+        if (local != null) {
+            return local == LocalCache.NULL_VALUE ? null : convertTo(local, type);
+        }
+        long generation = localCache.generation(key);
+        R loaded = loadById(key, id, ttl, type, loader);
+        localCache.put(key, loaded, generation);
+        return loaded;
+    }
+
+    private <ID, R> R loadById(String key,
+                               ID id,
+                               Duration ttl,
+                               Class<R> type,
+                               Function<ID, R> loader) {
 
         // 1) 查缓存
         Object cached = redisTemplate.opsForValue().get(key);
@@ -88,7 +155,17 @@ public class RedisCacheClient {
             return convertTo(cached, type);
         }
 
-        // 2) miss -> 锁
+        // 2) miss -> 本节点 single-flight：同 key 并发 miss 共享一次回源，分布式锁只用于跨节点互斥
+        return singleFlight(key, () -> lockAndLoadById(key, id, ttl, type, loader));
+    }
+
+    private <ID, R> R lockAndLoadById(String key,
+                                      ID id,
+                                      Duration ttl,
+                                      Class<R> type,
+                                      Function<ID, R> loader) {
+
+        // 3) 跨节点锁
         final String lockKey = props.getLockPrefix() + key;
         final RLock lock = redissonClient.getLock(lockKey);
 
@@ -133,6 +210,278 @@ public class RedisCacheClient {
         }
     }
 
+    /**
+     * 主键查询 value 缓存（逻辑过期）
+     * <p>
+     * Redis 中保存 {@link LogicalExpireValue}，物理 TTL = 逻辑 TTL + 抖动 + logicalExpireGrace：
+     * - 未过期：直接返回
+     * - 已逻辑过期：返回旧值，同时触发一次后台刷新（本节点去重 + 跨节点非阻塞锁，抢不到锁即跳过）
+     * - 不存在（冷 key）：与 getOrLoadById 相同的 single-flight + 加锁回源
+     * 适合读多写少、可容忍短暂旧值的热点 key；写后仍通过 evict 立即删除。
+     */
+    public <ID, R> R getOrLoadByIdWithLogicalExpire(String keyPrefix,
+                                                    ID id,
+                                                    Duration logicalTtl,
+                                                    Class<R> type,
+                                                    Function<ID, R> loader) {
+
+        final String key = buildKey(keyPrefix, String.valueOf(id));
+        if (localCache == null) {
+            return loadByIdWithLogicalExpire(key, id, logicalTtl, type, loader);
+        }
+
+        Object local = localCache.get(key);
+        if (local != null) {
+            return local == LocalCache.NULL_VALUE ? null : convertTo(local, type);
+        }
+        long generation = localCache.generation(key);
+        R loaded = loadByIdWithLogicalExpire(key, id, logicalTtl, type, loader);
+        localCache.put(key, loaded, generation);
+        return loaded;
+    }
+
+    private <ID, R> R loadByIdWithLogicalExpire(String key,
+                                                ID id,
+                                                Duration logicalTtl,
+                                                Class<R> type,
+                                                Function<ID, R> loader) {
+        Object cached = redisTemplate.opsForValue().get(key);
+        if (cached == null) {
+            return singleFlight(key, () -> lockAndLoadLogical(key, id, logicalTtl, type, loader));
+        }
+        if (isNullPlaceholder(cached)) return null;
+        if (!(cached instanceof LogicalExpireValue lv)) {
+            // 普通写入的值（未带逻辑过期，物理 TTL 可能远长于逻辑 TTL）：先返回，同时后台刷新为逻辑过期格式
+            refreshInBackground(key, id, logicalTtl, loader);
+            return convertTo(cached, type);
+        }
+        if (lv.getExpireAt() == null || lv.getExpireAt() <= System.currentTimeMillis()) {
+            refreshInBackground(key, id, logicalTtl, loader);
+        }
+        return convertTo(lv.getData(), type);
+    }
+
+    private <ID, R> R lockAndLoadLogical(String key,
+                                         ID id,
+                                         Duration logicalTtl,
+                                         Class<R> type,
+                                         Function<ID, R> loader) {
+        final RLock lock = redissonClient.getLock(props.getLockPrefix() + key);
+        boolean locked = false;
+        try {
+            locked = tryLockWithRetry(lock);
+
+            Object again = redisTemplate.opsForValue().get(key);
+            if (again != null) {
+                if (isNullPlaceholder(again)) return null;
+                return convertTo(again instanceof LogicalExpireValue lv ? lv.getData() : again, type);
+            }
+            if (!locked) {
+                throw new BusinessException("Failed to acquire cache lock after 3 attempts, key=" + key);
+            }
+
+            R loaded = loader.apply(id);
+            writeLogical(key, loaded, logicalTtl);
+            return loaded;
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 后台刷新逻辑过期的 key：本节点同 key 只提交一次，跨节点 tryLock(0) 抢不到说明已有节点在刷新
+     */
+    private <ID, R> void refreshInBackground(String key, ID id, Duration logicalTtl, Function<ID, R> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                final RLock lock = redissonClient.getLock(props.getLockPrefix() + key);
+                boolean locked = false;
+                try {
+                    locked = lock.tryLock(0, TimeUnit.MILLISECONDS);
+                    if (!locked) {
+                        return;
+                    }
+                    // 锁内 double-check：其他节点可能刚刷新完
+                    Object current = redisTemplate.opsForValue().get(key);
+                    if (current instanceof LogicalExpireValue lv
+                            && lv.getExpireAt() != null && lv.getExpireAt() > System.currentTimeMillis()) {
+                        return;
+                    }
+                    writeLogical(key, loader.apply(id), logicalTtl);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    // 刷新失败继续提供旧值，下次读取再触发
+                    log.warn("Refresh logical-expire cache failed, key={}, err={}", key, e.getMessage());
+                } finally {
+                    if (locked && lock.isHeldByCurrentThread()) {
+                        lock.unlock();
+                    }
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void writeLogical(String key, Object loaded, Duration logicalTtl) {
+        if (loaded == null) {
+            redisTemplate.opsForValue().set(key, NULL_PLACEHOLDER, props.getNullTtl());
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + logicalTtl.toMillis();
+        Duration physicalTtl = withJitter(logicalTtl).plus(props.getLogicalExpireGrace());
+        redisTemplate.opsForValue().set(key, new LogicalExpireValue(loaded, expireAt), physicalTtl);
+    }
+
+    /**
+     * 主键批量查询 value 缓存
+     * <p>
+     * 1) L1 → 一次 MGET 取 Redis 命中（兼容逻辑过期值，直接取其中数据）
+     * 2) miss 的 id 一次批量回源（loader 返回 id -> 值，不含的 id 视为不存在）
+     * 3) 一次 pipeline 回填：存在的值带 TTL 抖动，不存在的写空值占位
+     * 批量回源不加分布式锁，由空值占位防穿透；单 id 热点仍建议走 getOrLoadById。
+     * 与 getOrLoadByIdWithLogicalExpire 共用的 key 应改用 getOrLoadByIdsWithLogicalExpire，
+     * 否则回填的普通值会绕过逻辑过期。
+     *
+     * @return id -> 值，不存在的 id 不在结果中
+     */
+    public <ID, R> Map<ID, R> getOrLoadByIds(String keyPrefix,
+                                             Collection<ID> ids,
+                                             Duration ttl,
+                                             Class<R> type,
+                                             Function<List<ID>, Map<ID, R>> loader) {
+        return loadByIds(keyPrefix, ids, ttl, type, loader, false);
+    }
+
+    /**
+     * 主键批量查询 value 缓存（逻辑过期），与 getOrLoadByIdWithLogicalExpire 共用同一 key 与存储格式
+     * <p>
+     * - 命中且未过期：直接返回
+     * - 命中但已逻辑过期（或为普通写入的值）：返回旧值，并逐个触发后台刷新（与单 id 路径相同的去重与非阻塞锁）
+     * - miss：一次批量回源，pipeline 回填 {@link LogicalExpireValue}，物理 TTL = 逻辑 TTL + 抖动 + logicalExpireGrace
+     *
+     * @return id -> 值，不存在的 id 不在结果中
+     */
+    public <ID, R> Map<ID, R> getOrLoadByIdsWithLogicalExpire(String keyPrefix,
+                                                              Collection<ID> ids,
+                                                              Duration logicalTtl,
+                                                              Class<R> type,
+                                                              Function<List<ID>, Map<ID, R>> loader) {
+        return loadByIds(keyPrefix, ids, logicalTtl, type, loader, true);
+    }
+
+    private <ID, R> Map<ID, R> loadByIds(String keyPrefix,
+                                         Collection<ID> ids,
+                                         Duration ttl,
+                                         Class<R> type,
+                                         Function<List<ID>, Map<ID, R>> loader,
+                                         boolean logicalExpire) {
+        Map<ID, R> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(ids)) {
+            return result;
+        }
+
+        // 1) L1
+        List<ID> remoteIds = new ArrayList<>(ids.size());
+        List<String> remoteKeys = new ArrayList<>(ids.size());
+        Map<String, Long> generations = new HashMap<>();
+        for (ID id : new LinkedHashSet<>(ids)) {
+            String key = buildKey(keyPrefix, String.valueOf(id));
+            if (localCache != null) {
+                Object local = localCache.get(key);
+                if (local != null) {
+                    if (local != LocalCache.NULL_VALUE) {
+                        result.put(id, convertTo(local, type));
+                    }
+                    continue;
+                }
+                generations.put(key, localCache.generation(key));
+            }
+            remoteIds.add(id);
+            remoteKeys.add(key);
+        }
+        if (remoteIds.isEmpty()) {
+            return result;
+        }
+
+        // 2) MGET
+        List<Object> values = redisTemplate.opsForValue().multiGet(remoteKeys);
+        List<ID> missIds = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < remoteIds.size(); i++) {
+            Object cached = values == null || i >= values.size() ? null : values.get(i);
+            if (cached == null) {
+                missIds.add(remoteIds.get(i));
+                continue;
+            }
+            ID id = remoteIds.get(i);
+            String key = remoteKeys.get(i);
+            if (logicalExpire && !isNullPlaceholder(cached)
+                    && !(cached instanceof LogicalExpireValue lv && lv.getExpireAt() != null && lv.getExpireAt() > now)) {
+                refreshInBackground(key, id, ttl, one -> {
+                    Map<ID, R> m = loader.apply(List.of(one));
+                    return m == null ? null : m.get(one);
+                });
+            }
+            R value = isNullPlaceholder(cached) ? null
+                    : convertTo(cached instanceof LogicalExpireValue lv ? lv.getData() : cached, type);
+            if (value != null) {
+                result.put(id, value);
+            }
+            if (localCache != null) {
+                localCache.put(key, value, generations.get(key));
+            }
+        }
+        if (missIds.isEmpty()) {
+            return result;
+        }
+
+        // 3) 批量回源 + pipeline 回填
+        Map<ID, R> loaded = loader.apply(missIds);
+        long expireAt = System.currentTimeMillis() + ttl.toMillis();
+        Map<String, Object> backfill = new LinkedHashMap<>(missIds.size());
+        for (ID id : missIds) {
+            R value = loaded == null ? null : loaded.get(id);
+            String key = buildKey(keyPrefix, String.valueOf(id));
+            if (value == null) {
+                backfill.put(key, NULL_PLACEHOLDER);
+            } else {
+                backfill.put(key, logicalExpire ? new LogicalExpireValue(value, expireAt) : value);
+                result.put(id, value);
+            }
+            if (localCache != null) {
+                localCache.put(key, value, generations.get(key));
+            }
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Map.Entry<String, Object> e : backfill.entrySet()) {
+                    Duration expire;
+                    if (isNullPlaceholder(e.getValue())) {
+                        expire = props.getNullTtl();
+                    } else if (logicalExpire) {
+                        expire = withJitter(ttl).plus(props.getLogicalExpireGrace());
+                    } else {
+                        expire = withJitter(ttl);
+                    }
+                    ops.opsForValue().set(e.getKey(), e.getValue(), expire);
+                }
+                return null;
+            }
+        });
+        return result;
+    }
+
     /**
      * Hash：缓存整张 Map
      * <p>
@@ -143,6 +492,27 @@ public class RedisCacheClient {
                                             Duration ttl,
                                             Class<R> valueType,
                                             Supplier<Map<String, R>> loader) {
+        if (localCache == null) {
+            return loadHash(key, ttl, valueType, loader);
+        }
+
+        // 0) 查 L1（L1 中保存只读视图，命中与回源返回同一形态）
+        Object local = localCache.get(key);
+        if (local instanceof Map<?, ?> m) {
+            @SuppressWarnings("unchecked")
+            Map<String, R> cached = (Map<String, R>) m;
+            return cached;
+        }
+        long generation = localCache.generation(key);
+        Map<String, R> loaded = Collections.unmodifiableMap(loadHash(key, ttl, valueType, loader));
+        localCache.put(key, loaded, generation);
+        return loaded;
+    }
+
+    private <R> Map<String, R> loadHash(String key,
+                                        Duration ttl,
+                                        Class<R> valueType,
+                                        Supplier<Map<String, R>> loader) {
 
         // 1) 查缓存
         Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
@@ -159,7 +529,16 @@ public class RedisCacheClient {
             return result;
         }
 
-        // 2) miss -> 锁
+        // 2) miss -> 本节点 single-flight：同 key 并发 miss 共享一次回源，分布式锁只用于跨节点互斥
+        return singleFlight(key, () -> lockAndLoadHash(key, ttl, valueType, loader));
+    }
+
+    private <R> Map<String, R> lockAndLoadHash(String key,
+                                               Duration ttl,
+                                               Class<R> valueType,
+                                               Supplier<Map<String, R>> loader) {
+
+        // 3) 跨节点锁
         final String lockKey = props.getLockPrefix() + key;
         final RLock lock = redissonClient.getLock(lockKey);
 
@@ -220,6 +599,46 @@ public class RedisCacheClient {
         }
     }
 
+    /**
+     * Hash：只读取指定字段（HMGET），不拉取整张 Map
+     * <p>
+     * 约定 fields 中至少一个字段在缓存存在时必然存在（如元数据字段），
+     * 全部为空即视为缓存不存在，走 getOrLoadHash 的加锁回源后再取字段。
+     *
+     * @return 与 fields 一一对应的值，不存在的字段为 null
+     */
+    public <R> List<R> getHashFieldsOrLoad(String key,
+                                           List<String> fields,
+                                           Duration ttl,
+                                           Class<R> valueType,
+                                           Supplier<Map<String, R>> loader) {
+        List<R> result = new ArrayList<>(fields.size());
+        if (localCache != null && localCache.get(key) instanceof Map<?, ?> m) {
+            for (String f : fields) {
+                result.add(convertTo(m.get(f), valueType));
+            }
+            return result;
+        }
+
+        List<Object> values = redisTemplate.opsForHash().multiGet(key, new ArrayList<>(fields));
+        boolean any = false;
+        for (int i = 0; i < fields.size(); i++) {
+            Object v = values == null || i >= values.size() ? null : values.get(i);
+            any |= v != null;
+            result.add(convertTo(v, valueType));
+        }
+        if (any) {
+            return result;
+        }
+
+        Map<String, R> loaded = getOrLoadHash(key, ttl, valueType, loader);
+        result.clear();
+        for (String f : fields) {
+            result.add(loaded.get(f));
+        }
+        return result;
+    }
+
     /**
      * Set：缓存整套 Set
      * <p>
@@ -230,6 +649,27 @@ public class RedisCacheClient {
                                    Duration ttl,
                                    Class<R> elementType,
                                    Supplier<Set<R>> loader) {
+        if (localCache == null) {
+            return loadSet(key, ttl, elementType, loader);
+        }
+
+        // 0) 查 L1（L1 中保存只读视图，命中与回源返回同一形态）
+        Object local = localCache.get(key);
+        if (local instanceof Set<?> set) {
+            @SuppressWarnings("unchecked")
+            Set<R> cached = (Set<R>) set;
+            return cached;
+        }
+        long generation = localCache.generation(key);
+        Set<R> loaded = Collections.unmodifiableSet(loadSet(key, ttl, elementType, loader));
+        localCache.put(key, loaded, generation);
+        return loaded;
+    }
+
+    private <R> Set<R> loadSet(String key,
+                               Duration ttl,
+                               Class<R> elementType,
+                               Supplier<Set<R>> loader) {
 
         // 1) 查缓存
         Set<Object> members = redisTemplate.opsForSet().members(key);
@@ -245,7 +685,16 @@ public class RedisCacheClient {
             return result;
         }
 
-        // 2) miss -> 锁
+        // 2) miss -> 本节点 single-flight：同 key 并发 miss 共享一次回源，分布式锁只用于跨节点互斥
+        return singleFlight(key, () -> lockAndLoadSet(key, ttl, elementType, loader));
+    }
+
+    private <R> Set<R> lockAndLoadSet(String key,
+                                      Duration ttl,
+                                      Class<R> elementType,
+                                      Supplier<Set<R>> loader) {
+
+        // 3) 跨节点锁
         final String lockKey = props.getLockPrefix() + key;
         final RLock lock = redissonClient.getLock(lockKey);
 
@@ -306,10 +755,101 @@ public class RedisCacheClient {
     }
 
     /**
-     * 删除缓存（写后删缓存策略常用）
+     * Set 成员判断：不拉取整套集合
+     * <p>
+     * 1) L1 命中整套集合时直接判断
+     * 2) Redis SISMEMBER（空集合占位同样视为“集合存在”）
+     * 3) 集合不存在：走 getOrLoadSet 的加锁回源 + 回填，再判断
+     * <p>
+     * 注意：
+     * - key 传入必须是业务完整 key
+     */
+    public <R> boolean containsOrLoad(String key,
+                                      R member,
+                                      Duration ttl,
+                                      Class<R> elementType,
+                                      Supplier<Set<R>> loader) {
+        if (localCache != null && localCache.get(key) instanceof Set<?> set) {
+            return set.contains(member);
+        }
+        Long r = redisTemplate.execute(setContainsScript, Collections.singletonList(key), member);
+        if (r != null && r >= 0) {
+            return r == 1;
+        }
+        return getOrLoadSet(key, ttl, elementType, loader).contains(member);
+    }
+
+    /**
+     * 批量 Set 成员判断：keys.get(i) 是否包含 members.get(i)，一次 pipeline 完成，
+     * 集合不存在的 key 再逐个加锁回源（同一 key 只回源一次）
+     *
+     * @param loader 按 key 回源整套集合
+     * @return 与入参下标一一对应的判断结果
+     */
+    public <R> boolean[] containsOrLoadAll(List<String> keys,
+                                           List<R> members,
+                                           Duration ttl,
+                                           Class<R> elementType,
+                                           Function<String, Set<R>> loader) {
+        if (keys.size() != members.size()) {
+            throw new IllegalArgumentException("keys and members size mismatch");
+        }
+        int n = keys.size();
+        boolean[] result = new boolean[n];
+        if (n == 0) {
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        byte[] script = setContainsScript.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+
+        List<Integer> pending = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (localCache != null && localCache.get(keys.get(i)) instanceof Set<?> set) {
+                result[i] = set.contains(members.get(i));
+            } else {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return result;
+        }
+
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i : pending) {
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                        keySerializer.serialize(keys.get(i)), valueSerializer.serialize(members.get(i)));
+            }
+            return null;
+        });
+
+        Map<String, Set<R>> loaded = new HashMap<>();
+        for (int j = 0; j < pending.size(); j++) {
+            int i = pending.get(j);
+            Object reply = j < replies.size() ? replies.get(j) : null;
+            long code = reply instanceof Number num ? num.longValue() : -1;
+            if (code >= 0) {
+                result[i] = code == 1;
+                continue;
+            }
+            String key = keys.get(i);
+            Set<R> set = loaded.computeIfAbsent(key, k -> getOrLoadSet(k, ttl, elementType, () -> loader.apply(k)));
+            result[i] = set.contains(members.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 删除缓存（写后删缓存策略常用），同时失效各节点 L1
      */
     public void evict(String key) {
         redisTemplate.delete(key);
+        if (localCache != null) {
+            localCache.invalidate(List.of(key));
+        }
     }
 
     /**
@@ -319,6 +859,38 @@ public class RedisCacheClient {
         if (CollectionUtils.isEmpty(keys)) return;
         List<String> realKeys = keys.stream().toList();
         redisTemplate.delete(realKeys);
+        if (localCache != null) {
+            localCache.invalidate(realKeys);
+        }
+    }
+
+    /**
+     * 本节点 single-flight：同 key 只有一个调用方执行 loader，其余等待并共享结果（含异常）
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(String key, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        }
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
     }
 
     /**
@@ -401,6 +973,9 @@ public class RedisCacheClient {
         if (p.getLockWaitTime() == null || p.getLockWaitTime().isNegative()) {
             throw new IllegalArgumentException("lockWaitTime must be non-negative");
         }
+        if (p.getLogicalExpireGrace() == null || p.getLogicalExpireGrace().isNegative()) {
+            throw new IllegalArgumentException("logicalExpireGrace must be non-negative");
+        }
         if (p.getLockPrefix() == null) {
             throw new IllegalArgumentException("lockPrefix must not be null");
         }
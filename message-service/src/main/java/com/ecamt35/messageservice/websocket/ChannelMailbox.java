@@ -0,0 +1,153 @@
+package com.ecamt35.messageservice.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单连接串行邮箱：
+ * 同一连接的上行包按到达顺序逐个执行（同一时刻最多一个虚拟线程在处理该连接），不同连接之间仍并行。
+ * 保证同一 socket 的 CLIENT_REQUEST_SENT / CLIENT_ACK_READ 按发送顺序落库与分配 seq，客户端可以流水线发送。
+ * <p>
+ * 队列深度超过上限时拒绝入队，由调用方决定如何处理（通常关闭连接）。
+ * 单连接统计在连接关闭时输出，同时汇总到 {@link MailboxMetrics} 定时输出。
+ */
+@Slf4j
+public class ChannelMailbox {
+
+    private record Task(Runnable runnable, long enqueuedNanos) {
+    }
+
+    private final Executor executor;
+    private final int maxDepth;
+    private final MailboxMetrics metrics;
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ChannelMailbox(Executor executor, int maxDepth, MailboxMetrics metrics) {
+        this.executor = executor;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.metrics = metrics;
+    }
+
+    /**
+     * 入队并在空闲时调度执行
+     *
+     * @return false 表示队列已满
+     */
+    public boolean offer(Runnable runnable) {
+        int d = depth.incrementAndGet();
+        if (d > maxDepth) {
+            depth.decrementAndGet();
+            metrics.onOverflow();
+            return false;
+        }
+        peakDepth.accumulateAndGet(d, Math::max);
+        metrics.onEnqueued(d);
+        queue.offer(new Task(runnable, System.nanoTime()));
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭（应用停机）
+            running.set(false);
+            log.warn("Mailbox executor rejected, pending={}", depth.get());
+        }
+    }
+
+    private void drain() {
+        try {
+            Task task;
+            while ((task = queue.poll()) != null) {
+                depth.decrementAndGet();
+                long start = System.nanoTime();
+                long wait = start - task.enqueuedNanos();
+                totalWaitNanos.add(wait);
+                maxWaitNanos.accumulateAndGet(wait, Math::max);
+                metrics.onDequeued(wait);
+                try {
+                    task.runnable().run();
+                } catch (Throwable t) {
+                    log.error("Mailbox task failed", t);
+                } finally {
+                    long run = System.nanoTime() - start;
+                    totalRunNanos.add(run);
+                    processed.increment();
+                    metrics.onProcessed(run);
+                }
+            }
+        } finally {
+            running.set(false);
+            // 释放执行权与新任务入队之间的竞态：入队方 CAS 失败后由这里补调度
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * 当前排队数
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public int getPeakDepth() {
+        return peakDepth.get();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * 平均排队等待（微秒）
+     */
+    public long getAvgWaitMicros() {
+        long n = processed.sum();
+        return n == 0 ? 0 : totalWaitNanos.sum() / n / 1_000;
+    }
+
+    public long getMaxWaitMicros() {
+        return maxWaitNanos.get() / 1_000;
+    }
+
+    /**
+     * 平均处理耗时（微秒）
+     */
+    public long getAvgRunMicros() {
+        long n = processed.sum();
+        return n == 0 ? 0 : totalRunNanos.sum() / n / 1_000;
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + getDepth()
+                + ", peakDepth=" + getPeakDepth()
+                + ", processed=" + getProcessed()
+                + ", avgWaitUs=" + getAvgWaitMicros()
+                + ", maxWaitUs=" + getMaxWaitMicros()
+                + ", avgRunUs=" + getAvgRunMicros();
+    }
+}
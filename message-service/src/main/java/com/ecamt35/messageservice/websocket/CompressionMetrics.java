@@ -0,0 +1,146 @@
+package com.ecamt35.messageservice.websocket;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * permessage-deflate 下行压缩统计。
+ * <p>
+ * pipeline 中压缩编码器由扩展握手动态插入在 WebSocketServerExtensionHandler 之后，因此：
+ * - rawSideHandler 放在扩展处理器之后（靠近业务侧），看到的是压缩前的帧，同时计时压缩耗时（write 在 EventLoop 上同步穿过编码器）
+ * - wireSideHandler 放在扩展处理器之前（靠近网络侧），看到的是压缩后的帧（RSV1 置位），
+ *   同时从握手响应头判断该连接是否协商成功，未协商的连接不计入统计
+ */
+@Slf4j
+@Component
+public class CompressionMetrics {
+
+    private static final AttributeKey<Boolean> DEFLATE_NEGOTIATED_KEY = AttributeKey.valueOf("deflateNegotiated");
+
+    /**
+     * 达到阈值、进入压缩的帧数与原始字节数
+     */
+    private final LongAdder eligibleFrames = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    /**
+     * 实际压缩后的帧数与字节数
+     */
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    /**
+     * 压缩路径累计耗时（纳秒）
+     */
+    private final LongAdder compressNanos = new LongAdder();
+
+    private final ChannelHandler rawSideHandler = new RawSideHandler();
+    private final ChannelHandler wireSideHandler = new WireSideHandler();
+
+    private volatile int minFrameSize;
+
+    public void setMinFrameSize(int minFrameSize) {
+        this.minFrameSize = minFrameSize;
+    }
+
+    public ChannelHandler rawSideHandler() {
+        return rawSideHandler;
+    }
+
+    public ChannelHandler wireSideHandler() {
+        return wireSideHandler;
+    }
+
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * 压缩后/压缩前字节比，无数据时为 1
+     */
+    public double getCompressionRatio() {
+        long raw = rawBytes.sum();
+        return raw == 0 ? 1.0 : (double) compressedBytes.sum() / raw;
+    }
+
+    /**
+     * 输出统计并清零（区间统计）
+     */
+    public void logAndReset() {
+        long frames = eligibleFrames.sumThenReset();
+        long raw = rawBytes.sumThenReset();
+        long cFrames = compressedFrames.sumThenReset();
+        long compressed = compressedBytes.sumThenReset();
+        long nanos = compressNanos.sumThenReset();
+        if (frames == 0) {
+            return;
+        }
+        log.info("WebSocket deflate stats: frames={}, compressedFrames={}, rawBytes={}, compressedBytes={}, ratio={}, cpuMs={}, avgUsPerFrame={}",
+                frames, cFrames, raw, compressed,
+                String.format("%.3f", raw == 0 ? 1.0 : (double) compressed / raw),
+                nanos / 1_000_000, nanos / frames / 1_000);
+    }
+
+    private boolean eligible(ChannelHandlerContext ctx, Object msg) {
+        if (!Boolean.TRUE.equals(ctx.channel().attr(DEFLATE_NEGOTIATED_KEY).get())) {
+            return false;
+        }
+        if (!(msg instanceof TextWebSocketFrame
+                || msg instanceof BinaryWebSocketFrame
+                || msg instanceof ContinuationWebSocketFrame)) {
+            return false;
+        }
+        return ((WebSocketFrame) msg).content().readableBytes() >= minFrameSize;
+    }
+
+    @ChannelHandler.Sharable
+    private final class RawSideHandler extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (!eligible(ctx, msg)) {
+                ctx.write(msg, promise);
+                return;
+            }
+            eligibleFrames.increment();
+            rawBytes.add(((WebSocketFrame) msg).content().readableBytes());
+            long start = System.nanoTime();
+            ctx.write(msg, promise);
+            compressNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private final class WireSideHandler extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof WebSocketFrame frame) {
+                if ((frame.rsv() & WebSocketExtension.RSV1) != 0) {
+                    compressedFrames.increment();
+                    compressedBytes.add(frame.content().readableBytes());
+                }
+            } else if (msg instanceof HttpResponse response) {
+                String extensions = response.headers().get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS);
+                if (extensions != null && extensions.contains("permessage-deflate")) {
+                    ctx.channel().attr(DEFLATE_NEGOTIATED_KEY).set(true);
+                }
+            }
+            ctx.write(msg, promise);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecamt35.messageservice.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接串行邮箱（{@link ChannelMailbox}）的全节点汇总统计，由 NettyServer 定时输出。
+ * <p>
+ * queued 为当前所有连接排队总数（瞬时值，不清零）；其余为区间统计，输出后清零。
+ */
+@Slf4j
+@Component
+public class MailboxMetrics {
+
+    private final AtomicLong queued = new AtomicLong();
+    /**
+     * 区间内单连接出现过的最大排队深度
+     */
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    /**
+     * 队列满被拒绝（随后关闭连接）的次数
+     */
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    void onEnqueued(int depth) {
+        queued.incrementAndGet();
+        peakDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    void onOverflow() {
+        overflows.increment();
+    }
+
+    void onDequeued(long waitNanos) {
+        queued.decrementAndGet();
+        this.waitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void onProcessed(long runNanos) {
+        processed.increment();
+        this.runNanos.add(runNanos);
+    }
+
+    /**
+     * 输出统计并清零（区间统计）
+     */
+    public void logAndReset() {
+        long n = processed.sumThenReset();
+        long overflow = overflows.sumThenReset();
+        long wait = waitNanos.sumThenReset();
+        long run = runNanos.sumThenReset();
+        long maxWait = maxWaitNanos.getAndSet(0);
+        int peak = peakDepth.getAndSet(0);
+        if (n == 0 && overflow == 0) {
+            return;
+        }
+        log.info("WebSocket mailbox stats: queued={}, peakDepth={}, overflows={}, processed={}, avgWaitUs={}, maxWaitUs={}, avgRunUs={}",
+                queued.get(), peak, overflow, n,
+                n == 0 ? 0 : wait / n / 1_000, maxWait / 1_000,
+                n == 0 ? 0 : run / n / 1_000);
+    }
+}
@@ -0,0 +1,155 @@
+package com.ecamt35.messageservice.websocket;
+
+import com.ecamt35.messageservice.constant.PacketTypeConstant;
+import com.ecamt35.messageservice.model.vo.ConversationHintVo;
+import com.ecamt35.messageservice.model.vo.PushVo;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 下行背压处理器（pipeline 末尾，拦截所有 channel.write）：
+ * - Channel 可写且无积压时直接透传
+ * - 不可写（超过 WRITE_BUFFER_WATER_MARK 高水位）时进入本连接的有界队列，可写后（channelWritabilityChanged）按序排空
+ * - 队列溢出时按策略处理：
+ * COLLAPSE：把积压的消息推送折叠为每会话一条 SERVER_CONVERSATION_HINT（会话ID + 最新 seq），客户端据此拉取；
+ * 折叠后仍放不下则关闭连接
+ * CLOSE：直接关闭慢连接，客户端重连后拉取
+ * <p>
+ * 所有方法都在 Channel 的 EventLoop 上执行，队列无需加锁。
+ */
+@Slf4j
+public class OutboundBackpressureHandler extends ChannelDuplexHandler {
+
+    public enum OverflowPolicy {
+        COLLAPSE,
+        CLOSE
+    }
+
+    /**
+     * 可折叠的消息推送：携带会话与 seq，溢出时可被 SERVER_CONVERSATION_HINT 替代
+     */
+    public record CollapsiblePush(WebSocketFrame frame, long conversationId, long seq) {
+    }
+
+    private record Pending(Object msg, ChannelPromise promise) {
+    }
+
+    private final int maxPending;
+    private final OverflowPolicy overflowPolicy;
+    private final PacketCodec packetCodec;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+
+    public OutboundBackpressureHandler(int maxPending, OverflowPolicy overflowPolicy, PacketCodec packetCodec) {
+        this.maxPending = Math.max(1, maxPending);
+        this.overflowPolicy = overflowPolicy;
+        this.packetCodec = packetCodec;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (queue.isEmpty() && ctx.channel().isWritable()) {
+            ctx.write(unwrap(msg), promise);
+            return;
+        }
+        queue.add(new Pending(msg, promise));
+        if (queue.size() > maxPending) {
+            onOverflow(ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        drain(ctx);
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failAll(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        failAll(new ClosedChannelException());
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        if (queue.isEmpty()) {
+            return;
+        }
+        boolean written = false;
+        while (!queue.isEmpty() && ctx.channel().isWritable()) {
+            Pending p = queue.poll();
+            ctx.write(unwrap(p.msg()), p.promise());
+            written = true;
+        }
+        if (written) {
+            ctx.flush();
+        }
+    }
+
+    private void onOverflow(ChannelHandlerContext ctx) {
+        if (overflowPolicy == OverflowPolicy.COLLAPSE && collapse(ctx) && queue.size() <= maxPending) {
+            return;
+        }
+        log.warn("Outbound queue overflow, close slow channel, remote={}, pending={}",
+                ctx.channel().remoteAddress(), queue.size());
+        failAll(new IllegalStateException("outbound queue overflow"));
+        ctx.close();
+    }
+
+    /**
+     * 将积压的消息推送折叠为每会话一条提示，非消息类下行（ACK/事件等）保持原顺序
+     *
+     * @return 是否有可折叠的推送
+     */
+    private boolean collapse(ChannelHandlerContext ctx) {
+        Map<Long, Long> lastSeqByConv = new LinkedHashMap<>();
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            Pending p = it.next();
+            if (p.msg() instanceof CollapsiblePush push) {
+                lastSeqByConv.merge(push.conversationId(), push.seq(), Math::max);
+                ReferenceCountUtil.release(push.frame());
+                p.promise().trySuccess();
+                it.remove();
+            }
+        }
+        if (lastSeqByConv.isEmpty()) {
+            return false;
+        }
+
+        WireFormat format = WireFormat.of(ctx.channel());
+        for (Map.Entry<Long, Long> e : lastSeqByConv.entrySet()) {
+            PushVo hint = new PushVo(PacketTypeConstant.SERVER_CONVERSATION_HINT,
+                    new ConversationHintVo(e.getKey(), e.getValue()));
+            queue.add(new Pending(packetCodec.encodeFrame(format, hint), ctx.newPromise()));
+        }
+        log.info("Outbound queue collapsed, remote={}, conversations={}, pending={}",
+                ctx.channel().remoteAddress(), lastSeqByConv.size(), queue.size());
+        return true;
+    }
+
+    private void failAll(Throwable cause) {
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            ReferenceCountUtil.release(unwrap(p.msg()));
+            p.promise().tryFailure(cause);
+        }
+    }
+
+    private static Object unwrap(Object msg) {
+        return msg instanceof CollapsiblePush push ? push.frame() : msg;
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecamt35.messageservice.websocket;
+
+import com.ecamt35.messageservice.model.dto.CommonPacketDto;
+import com.ecamt35.messageservice.util.BusinessException;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * 报文编解码：按连接协商的 WireFormat 在 JSON 文本帧与 CBOR 二进制帧之间切换。
+ * CBOR mapper 由 JSON mapper 复制而来，保持相同的序列化/反序列化配置。
+ * <p>
+ * 上行解码直接在帧 ByteBuf 上流式解析（堆内存走 byte[] 解析器，直接内存走 ByteBufInputStream），
+ * data 按 packetType 一次绑定到 handler 声明的载荷 record，不经过中间 String / Map。
+ */
+@Component
+public class PacketCodec {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    public PacketCodec(ObjectMapper objectMapper) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    private ObjectMapper mapper(WireFormat format) {
+        return format == WireFormat.CBOR ? cborMapper : jsonMapper;
+    }
+
+    /**
+     * 帧类型是否与连接协商的格式匹配
+     */
+    public boolean accepts(WireFormat format, WebSocketFrame frame) {
+        return format == WireFormat.CBOR
+                ? frame instanceof BinaryWebSocketFrame
+                : frame instanceof TextWebSocketFrame;
+    }
+
+    /**
+     * 解析上行报文（帧内容不会被 release）
+     *
+     * @param payloadTypes packetType -> data 载荷类型，返回 null 表示跳过 data
+     */
+    public CommonPacketDto<Object> decode(WireFormat format,
+                                          WebSocketFrame frame,
+                                          Function<Integer, Class<?>> payloadTypes) throws IOException {
+        ObjectMapper mapper = mapper(format);
+        try (JsonParser p = createParser(mapper, frame.content())) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(p, "packet must be an object");
+            }
+            Integer packetType = null;
+            Object data = null;
+            // data 出现在 packetType 之前时先缓存 token，类型确定后再绑定
+            TokenBuffer pendingData = null;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if ("packetType".equals(field)) {
+                    packetType = mapper.readValue(p, Integer.class);
+                } else if ("data".equals(field)) {
+                    if (packetType != null) {
+                        data = bind(mapper, p, payloadTypes.apply(packetType));
+                    } else {
+                        pendingData = mapper.readValue(p, TokenBuffer.class);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+
+            if (pendingData != null) {
+                try (JsonParser bp = pendingData.asParser(mapper)) {
+                    bp.nextToken();
+                    data = bind(mapper, bp, payloadTypes.apply(packetType));
+                }
+            }
+            return new CommonPacketDto<>(packetType, data);
+        }
+    }
+
+    private static JsonParser createParser(ObjectMapper mapper, ByteBuf content) throws IOException {
+        if (content.hasArray()) {
+            return mapper.createParser(content.array(), content.arrayOffset() + content.readerIndex(), content.readableBytes());
+        }
+        return mapper.createParser((InputStream) new ByteBufInputStream(content.duplicate()));
+    }
+
+    /**
+     * 当前 token 位于 data 值上
+     */
+    private static Object bind(ObjectMapper mapper, JsonParser p, Class<?> type) throws IOException {
+        if (type == null || type == Void.class) {
+            p.skipChildren();
+            return null;
+        }
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return mapper.readValue(p, type);
+    }
+
+    /**
+     * 序列化为池化直接内存
+     *
+     * @return 引用计数为 1 的 ByteBuf，调用方负责 release
+     */
+    public ByteBuf encode(WireFormat format, Object value) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            mapper(format).writeValue((OutputStream) new ByteBufOutputStream(buf), value);
+            return buf;
+        } catch (Exception e) {
+            buf.release();
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    /**
+     * 包装为对应类型的 WebSocket 帧（接管 content 的引用）
+     */
+    public WebSocketFrame frame(WireFormat format, ByteBuf content) {
+        return format == WireFormat.CBOR
+                ? new BinaryWebSocketFrame(content)
+                : new TextWebSocketFrame(content);
+    }
+
+    /**
+     * 握手完成后的节点名首包：JSON 连接保持原始文本（兼容既有客户端），CBOR 连接编码为 CBOR 文本串的二进制帧
+     */
+    public WebSocketFrame greetingFrame(WireFormat format, String nodeName) {
+        if (format == WireFormat.CBOR) {
+            return encodeFrame(format, nodeName);
+        }
+        return frame(format, Unpooled.copiedBuffer(nodeName, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 编码为单个连接的下行帧
+     */
+    public WebSocketFrame encodeFrame(WireFormat format, Object value) {
+        return frame(format, encode(format, value));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecamt35.messageservice.websocket;
+
+import com.ecamt35.messageservice.model.vo.PushVo;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 扇出推送编码器：
+ * 一次推送对每种 WireFormat 最多序列化一次到池化直接内存，各本地 Channel 通过 retainedDuplicate 共享同一份字节，
+ * 避免每个接收者各自生成 String 与帧拷贝。
+ * <p>
+ * 用法：encode 得到 SharedPush -> 对每个 Channel 调用 writeShared -> 调用方 finally 中 release。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushFrameEncoder {
+
+    private final PacketCodec packetCodec;
+
+    /**
+     * 创建共享推送，按需（首次写入对应格式的 Channel 时）编码
+     */
+    public SharedPush encode(PushVo pushVo) {
+        return new SharedPush(pushVo, null, null);
+    }
+
+    /**
+     * 创建可折叠的消息推送：连接积压溢出时可被替换为该会话的 SERVER_CONVERSATION_HINT
+     */
+    public SharedPush encodeCollapsible(PushVo pushVo, Long conversationId, Long seq) {
+        return new SharedPush(pushVo, conversationId, seq);
+    }
+
+    /**
+     * 将共享 payload 写入 Channel。
+     * retainedDuplicate 在调用线程完成，保证调用方随后 release 是安全的。
+     */
+    public void writeShared(Channel ch, SharedPush push) {
+        WireFormat format = WireFormat.of(ch);
+        WebSocketFrame frame = packetCodec.frame(format, push.content(format).retainedDuplicate());
+        Object msg = push.collapsible()
+                ? new OutboundBackpressureHandler.CollapsiblePush(frame, push.conversationId, push.seq)
+                : frame;
+        try {
+            ch.eventLoop().execute(() -> ch.writeAndFlush(msg));
+        } catch (RejectedExecutionException e) {
+            // EventLoop 已关闭
+            frame.release();
+            log.debug("EventLoop rejected push, channel={}", ch.id());
+        }
+    }
+
+    /**
+     * 一次推送的共享编码结果（非线程安全，只在投递线程内使用）
+     */
+    public final class SharedPush {
+
+        private final PushVo pushVo;
+        private final Long conversationId;
+        private final Long seq;
+        private final ByteBuf[] contents = new ByteBuf[WireFormat.values().length];
+
+        private SharedPush(PushVo pushVo, Long conversationId, Long seq) {
+            this.pushVo = pushVo;
+            this.conversationId = conversationId;
+            this.seq = seq;
+        }
+
+        private boolean collapsible() {
+            return conversationId != null && seq != null;
+        }
+
+        private ByteBuf content(WireFormat format) {
+            ByteBuf buf = contents[format.ordinal()];
+            if (buf == null) {
+                buf = packetCodec.encode(format, pushVo);
+                contents[format.ordinal()] = buf;
+            }
+            return buf;
+        }
+
+        public void release() {
+            for (int i = 0; i < contents.length; i++) {
+                if (contents[i] != null) {
+                    contents[i].release();
+                    contents[i] = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.ecamt35.messageservice.websocket;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本节点设备路由租约管理（ws:online:{userId}:{deviceId}）：
+ * - 续期：每条路由在时间轮上挂一个到期任务（注册后 refreshInterval ± 抖动），到期只入队；
+ * flush 任务按批 pipeline EXPIRE，续期后重新挂到时间轮
+ * - 释放：断开的连接入队，flush 任务按批执行一次 sessionId 匹配删除脚本，断线潮时合并为少量 Redis 调用
+ * - 停机：把本节点仍持有的路由一次性批量释放
+ * <p>
+ * 时间轮线程只做入队，Redis IO 统一在虚拟线程上执行。
+ */
+@Slf4j
+@Component
+public class RouteLeaseManager {
+
+    private record Lease(Long userId, String deviceId, String sessionId, String redisKey) {
+    }
+
+    // key = userId:deviceId，与 UserChannelRegistry.localKey 一致
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Queue<Lease> refreshQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<Lease> releaseQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private HashedWheelTimer timer;
+    private volatile boolean stopped;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private DefaultRedisScript<Long> wsRouteReleaseBatchScript;
+    @Resource(name = "virtualExecutor")
+    private ExecutorService virtualExecutor;
+
+    @Value("${device-session-timeout}")
+    private int deviceSessionTimeout;
+    // 续期间隔（秒），<=0 时取 device-session-timeout 的 1/3
+    @Value("${route-lease.refresh-interval-seconds:0}")
+    private int refreshIntervalSeconds;
+    @Value("${route-lease.flush-interval-millis:200}")
+    private long flushIntervalMillis;
+    @Value("${route-lease.batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    public void init() {
+        if (refreshIntervalSeconds <= 0) {
+            refreshIntervalSeconds = Math.max(1, deviceSessionTimeout / 3);
+        }
+        batchSize = Math.max(1, batchSize);
+        timer = new HashedWheelTimer(new DefaultThreadFactory("route-lease", true),
+                Math.max(10, flushIntervalMillis), TimeUnit.MILLISECONDS);
+        scheduleFlush();
+        log.info("Route lease manager started, refreshIntervalSeconds={}, flushIntervalMillis={}, batchSize={}",
+                refreshIntervalSeconds, flushIntervalMillis, batchSize);
+    }
+
+    /**
+     * 注册成功后登记租约（同设备旧租约被覆盖，其到期任务触发时自然失效）
+     */
+    public void acquire(Long userId, String deviceId, String sessionId, String redisKey) {
+        if (stopped) {
+            return;
+        }
+        Lease lease = new Lease(userId, deviceId, sessionId, redisKey);
+        leases.put(leaseKey(userId, deviceId), lease);
+        scheduleRefresh(lease);
+    }
+
+    /**
+     * 连接断开后释放租约，路由删除合并到下一次 flush
+     */
+    public void release(Long userId, String deviceId, String sessionId, String redisKey) {
+        if (sessionId == null) {
+            return;
+        }
+        Lease lease = new Lease(userId, deviceId, sessionId, redisKey);
+        // 只移除属于该 session 的租约，避免旧连接移除新连接的租约
+        leases.remove(leaseKey(userId, deviceId), lease);
+        releaseQueue.offer(lease);
+    }
+
+    private void scheduleRefresh(Lease lease) {
+        long base = TimeUnit.SECONDS.toMillis(refreshIntervalSeconds);
+        // ±10% 抖动，避免断线重连潮后的续期集中在同一时刻
+        long jitter = base / 10;
+        long delay = jitter > 0 ? base - jitter + ThreadLocalRandom.current().nextLong(jitter * 2) : base;
+        try {
+            timer.newTimeout(t -> {
+                if (lease.equals(leases.get(leaseKey(lease.userId(), lease.deviceId())))) {
+                    refreshQueue.offer(lease);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 时间轮已停止（应用停机）
+        }
+    }
+
+    private void scheduleFlush() {
+        if (stopped) {
+            return;
+        }
+        try {
+            timer.newTimeout(this::onFlushTick, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 时间轮已停止
+        }
+    }
+
+    private void onFlushTick(Timeout timeout) {
+        try {
+            if ((!refreshQueue.isEmpty() || !releaseQueue.isEmpty()) && flushing.compareAndSet(false, true)) {
+                try {
+                    virtualExecutor.execute(() -> {
+                        try {
+                            flush();
+                        } finally {
+                            flushing.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    flushing.set(false);
+                }
+            }
+        } finally {
+            scheduleFlush();
+        }
+    }
+
+    private void flush() {
+        List<Lease> batch = new ArrayList<>(batchSize);
+        Lease lease;
+        while ((lease = releaseQueue.poll()) != null) {
+            batch.add(lease);
+            if (batch.size() >= batchSize) {
+                releaseBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            releaseBatch(batch);
+            batch.clear();
+        }
+
+        while ((lease = refreshQueue.poll()) != null) {
+            batch.add(lease);
+            if (batch.size() >= batchSize) {
+                refreshBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            refreshBatch(batch);
+        }
+    }
+
+    /**
+     * 一次 pipeline 续期，续期后重新挂到时间轮
+     */
+    private void refreshBatch(List<Lease> batch) {
+        RedisSerializer<String> keySerializer = RedisSerializer.string();
+        long ttl = deviceSessionTimeout;
+        int missing = 0;
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Lease l : batch) {
+                    connection.keyCommands().expire(keySerializer.serialize(l.redisKey()), ttl);
+                }
+                return null;
+            });
+            for (Object r : results) {
+                if (!Boolean.TRUE.equals(r)) {
+                    missing++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Route lease refresh failed, size={}, err={}", batch.size(), e.getMessage());
+        }
+        for (Lease l : batch) {
+            if (l.equals(leases.get(leaseKey(l.userId(), l.deviceId())))) {
+                scheduleRefresh(l);
+            }
+        }
+        if (missing > 0) {
+            // 路由已不存在（被其他节点的新连接覆盖后删除，或 Redis 数据丢失），等待客户端重连重新注册
+            log.info("Route lease refresh found missing routes, size={}, missing={}", batch.size(), missing);
+        }
+    }
+
+    /**
+     * 一次脚本调用批量释放（sessionId 匹配才删）
+     */
+    private void releaseBatch(List<Lease> batch) {
+        List<String> keys = new ArrayList<>(batch.size());
+        Object[] sessionIds = new Object[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            keys.add(batch.get(i).redisKey());
+            sessionIds[i] = batch.get(i).sessionId();
+        }
+        try {
+            Long released = stringRedisTemplate.execute(wsRouteReleaseBatchScript, keys, sessionIds);
+            log.debug("Route lease released, size={}, deleted={}", batch.size(), released);
+        } catch (Exception e) {
+            // 删除失败时路由依赖 TTL 过期，新连接注册会覆盖
+            log.warn("Route lease release failed, size={}, err={}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 当前持有的路由数
+     */
+    public int size() {
+        return leases.size();
+    }
+
+    private static String leaseKey(Long userId, String deviceId) {
+        return userId + ":" + deviceId;
+    }
+
+    /**
+     * 停机：停止时间轮，把待释放与仍持有的路由一次性批量释放
+     */
+    @PreDestroy
+    public void destroy() {
+        stopped = true;
+        if (timer != null) {
+            timer.stop();
+        }
+        List<Lease> all = new ArrayList<>(releaseQueue);
+        releaseQueue.clear();
+        refreshQueue.clear();
+        all.addAll(leases.values());
+        leases.clear();
+
+        for (int from = 0; from < all.size(); from += batchSize) {
+            releaseBatch(all.subList(from, Math.min(all.size(), from + batchSize)));
+        }
+        log.info("Route lease manager stopped, released={}", all.size());
+    }
+}
@@ -9,16 +9,17 @@ import io.netty.util.AttributeKey;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 @Component
 @Slf4j
@@ -35,17 +36,19 @@ public class UserChannelRegistry {
 
     // Redis keys
     public static final String WS_ONLINE_KEY_PREFIX = "ws:online:"; // ws:online:{userId}:{deviceId}
-    public static final String LOCK_USER_DEVICE_KEY_PREFIX = "lock:user:device:";
 
     // key 用 userId:deviceId，避免不同用户 deviceId 冲突
     private final ConcurrentMap<String, Channel> deviceChannels = new ConcurrentHashMap<>();
 
+    // 路由脚本自行把值编码为 JSON 字符串，参数/结果按原始字符串传递
     @Resource
-    private RedisTemplate<String, String> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
     @Resource
-    private RabbitTemplate rabbitTemplate;
+    private DefaultRedisScript<List> wsRouteRegisterScript;
+    @Resource
+    private RouteLeaseManager routeLeaseManager;
     @Resource
-    private RedissonClient redissonClient;
+    private RabbitTemplate rabbitTemplate;
     @Resource
     private OfflineConnectConstant offlineConnectConstant;
     @Resource
@@ -60,7 +63,7 @@ public class UserChannelRegistry {
     /**
      * 异步发起注册流程：
      * 1) 在 eventLoop 内写入本次注册的 attrs/token，并做幂等与“正在注册”判断
-     * 2) 将阻塞/IO 的注册流程交给虚拟线程执行（分布式锁 + Redis 路由 + MQ 踢旧）
+     * 2) 将阻塞/IO 的注册流程交给虚拟线程执行（Redis 路由 CAS 脚本 + MQ 踢旧）
      */
     public CompletableFuture<Void> registerUserAsync(Long userId, String deviceId, Channel channel) {
         CompletableFuture<Void> future = new CompletableFuture<>();
@@ -77,7 +80,6 @@ public class UserChannelRegistry {
         final String newSessionId = channel.id().asLongText();
         final Long regToken = snowflake.nextId();
         final String redisKey = wsOnlineKey(userId, deviceId);
-        final String lockKey = LOCK_USER_DEVICE_KEY_PREFIX + userId + ":" + deviceId;
 
         // 先在 eventLoop 写入本次注册标识 + 基础 attrs，保证和 handlerRemoved 的顺序一致
         // 同一个channel串行，做一些判断基本并发问题不大
@@ -113,7 +115,7 @@ public class UserChannelRegistry {
             channel.attr(REGISTERED_KEY).set(false);
 
             // 阻塞部分丢到虚拟线程
-            virtualExecutor.execute(() -> doRegisterInVirtualThread(userId, deviceId, channel, newSessionId, regToken, lockKey, redisKey, future));
+            virtualExecutor.execute(() -> doRegisterInVirtualThread(userId, deviceId, channel, newSessionId, regToken, redisKey, future));
         });
 
         return future;
@@ -121,36 +123,21 @@ public class UserChannelRegistry {
 
     /**
      *
-     * 虚拟线程中的“完整注册事务”：
-     * 1. 获取分布式锁
-     * 2. 读取旧路由(node/sessionId)
-     * 3. 校验本次注册 token 仍有效
-     * 4. 在 eventLoop 绑定本地映射并关闭本机旧连接
-     * 5. 写 Redis 路由并设置 TTL
-     * 6. 在 eventLoop 标记 registered=true
-     * 7. 必要时发送 MQ 通知旧节点踢旧连接
-     * 8. complete future
+     * 虚拟线程中的“完整注册事务”（不加分布式锁，靠 regToken 做 CAS）：
+     * 1. 校验本次注册 token 仍有效
+     * 2. 在 eventLoop 绑定本地映射并关闭本机旧连接
+     * 3. 一次脚本调用：比较 regToken、写 Redis 路由并设置 TTL、返回旧路由(node/sessionId)
+     * 4. 在 eventLoop 标记 registered=true
+     * 5. 必要时发送 MQ 通知旧节点踢旧连接
+     * 6. complete future
+     * <p>
+     * regToken 为 snowflake，同一设备并发注册时 token 大者胜出：
+     * 后到的旧注册被脚本拒绝，先到的旧路由由胜出者拿到并踢掉。
      *
      */
     private void doRegisterInVirtualThread(Long userId, String deviceId, Channel channel, String newSessionId,
-                                           Long regToken, String lockKey, String redisKey, CompletableFuture<Void> future) {
-
-        RLock lock = redissonClient.getLock(lockKey);
-
-        String oldNode = null;
-        String oldSessionId = null;
-
+                                           Long regToken, String redisKey, CompletableFuture<Void> future) {
         try {
-            if (!lock.tryLock(5, 15, TimeUnit.SECONDS)) {
-                throw new BusinessException("Device is being registered by another node, please retry later");
-            }
-
-            // 旧路由
-            Object oldNodeObj = redisTemplate.opsForHash().get(redisKey, "node");
-            Object oldSidObj = redisTemplate.opsForHash().get(redisKey, "sessionId");
-            oldNode = oldNodeObj == null ? null : String.valueOf(oldNodeObj);
-            oldSessionId = oldSidObj == null ? null : String.valueOf(oldSidObj);
-
             // 如果这次注册已经失效（连接断了/被新注册覆盖），直接失败
             if (!isAttemptValid(channel, regToken)) {
                 throw new BusinessException("Channel closed or registration superseded");
@@ -168,17 +155,32 @@ public class UserChannelRegistry {
                 throw new BusinessException("Registration superseded after commit");
             }
 
+            List<?> result;
             try {
-                Map<String, Object> hashData = new HashMap<>();
-                hashData.put("node", nodeName);
-                hashData.put("sessionId", newSessionId);
-                hashData.put("ts", String.valueOf(System.currentTimeMillis()));
-                redisTemplate.opsForHash().putAll(redisKey, hashData);
-                redisTemplate.expire(redisKey, deviceSessionTimeout, TimeUnit.SECONDS);
+                result = stringRedisTemplate.execute(
+                        wsRouteRegisterScript,
+                        List.of(redisKey),
+                        nodeName,
+                        newSessionId,
+                        String.valueOf(regToken),
+                        String.valueOf(System.currentTimeMillis()),
+                        String.valueOf(deviceSessionTimeout)
+                );
             } catch (Exception e) {
                 // Redis 写失败时，抛出异常清理本地
                 throw new BusinessException("Write redis route failed: " + e.getMessage());
             }
+            if (result == null || result.size() < 3) {
+                throw new BusinessException("Write redis route failed: empty script result");
+            }
+            if (!"1".equals(String.valueOf(result.get(0)))) {
+                // 同设备已有更新的注册写入路由
+                throw new BusinessException("Device registered by a newer connection");
+            }
+            String oldNode = String.valueOf(result.get(1));
+            String oldSessionId = String.valueOf(result.get(2));
+            // 登记租约，由 RouteLeaseManager 定期续期 TTL
+            routeLeaseManager.acquire(userId, deviceId, newSessionId, redisKey);
 
             CompletableFuture<Void> markDone = new CompletableFuture<>();
             channel.eventLoop().execute(() -> {
@@ -191,7 +193,8 @@ public class UserChannelRegistry {
             markDone.join();
 
             // 提交成功后再踢旧，避免新连接失败却踢旧
-            if (oldNode != null && !oldNode.isBlank() && oldSessionId != null && !oldSessionId.isBlank()
+            if (!oldNode.isBlank() && !oldSessionId.isBlank()
+                    && !oldSessionId.equals(newSessionId)
                     && !nodeName.equals(oldNode)) {
 
                 if (isAttemptValid(channel, regToken)) {
@@ -208,17 +211,9 @@ public class UserChannelRegistry {
 
             future.complete(null);
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            cleanupLocalOnEventLoop(userId, deviceId, channel, regToken);
-            future.completeExceptionally(new BusinessException("Lock interrupted"));
         } catch (Exception e) {
             cleanupLocalOnEventLoop(userId, deviceId, channel, regToken);
             future.completeExceptionally(e);
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
-            }
         }
     }
 
@@ -243,6 +238,15 @@ public class UserChannelRegistry {
             }
 
             String lk = localKey(userId, deviceId);
+            // 无分布式锁时本机同设备并发注册也按 regToken 定序：已绑定的是更新的注册则本次放弃
+            Channel current = deviceChannels.get(lk);
+            if (current != null && current != channel && current.isActive()) {
+                Long currentToken = current.attr(REG_TOKEN_KEY).get();
+                if (currentToken != null && currentToken > regToken) {
+                    f.complete(false);
+                    return;
+                }
+            }
             Channel oldChannel = deviceChannels.put(lk, channel);
 
             // 关闭本地旧连接（同 device 重连/顶号）
@@ -262,7 +266,7 @@ public class UserChannelRegistry {
     /**
      * 异步触发注销：
      * 1. eventLoop 内移除本地映射、清理 attrs
-     * 2. 虚拟线程中加锁并在 Redis 侧做 session 匹配才删除的路由清理
+     * 2. 交给 RouteLeaseManager 合并批量删除 Redis 路由（session 匹配才删除）
      */
     public void unregisterAsync(Channel channel) {
 
@@ -286,39 +290,13 @@ public class UserChannelRegistry {
                 channel.attr(DEVICE_ID_KEY).set(null);
                 channel.attr(SESSION_ID_KEY).set(null);
 
-                // Redis 删除放虚拟线程
-                virtualExecutor.execute(() -> deleteRedisRoute(userId, deviceId, sessionId));
+                // Redis 删除合并到租约管理器的批量释放
+                routeLeaseManager.release(userId, deviceId, sessionId, wsOnlineKey(userId, deviceId));
             }
         });
 
     }
 
-    private void deleteRedisRoute(Long userId, String deviceId, String sessionId) {
-        String lockKey = LOCK_USER_DEVICE_KEY_PREFIX + userId + ":" + deviceId;
-        RLock lock = redissonClient.getLock(lockKey);
-
-        String redisKey = wsOnlineKey(userId, deviceId);
-
-        try {
-            if (!lock.tryLock(5, 10, TimeUnit.SECONDS)) {
-                return;
-            }
-
-            Object sidObj = redisTemplate.opsForHash().get(redisKey, "sessionId");
-            String redisSid = sidObj == null ? null : String.valueOf(sidObj);
-
-            // session 匹配才删，避免误删新会话
-            if (sessionId != null && sessionId.equals(redisSid)) {
-                redisTemplate.delete(redisKey);
-            }
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } finally {
-            if (lock.isHeldByCurrentThread()) lock.unlock();
-        }
-    }
-
     private void cleanupLocalOnEventLoop(Long userId, String deviceId, Channel channel, Long regToken) {
         channel.eventLoop().execute(() -> {
             deviceChannels.remove(localKey(userId, deviceId), channel);
@@ -1,24 +1,22 @@
 package com.ecamt35.messageservice.websocket;
 
-import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.constant.BusinessErrorCodeConstant;
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
 import com.ecamt35.messageservice.constant.ProtocolErrorCodeConstant;
+import com.ecamt35.messageservice.model.dto.ClientRegisterDto;
 import com.ecamt35.messageservice.model.dto.CommonPacketDto;
 import com.ecamt35.messageservice.model.vo.PushVo;
 import com.ecamt35.messageservice.model.vo.RegisterAckVo;
 import com.ecamt35.messageservice.model.vo.RegisterNackVo;
 import com.ecamt35.messageservice.websocket.dispatch.MessageDispatcher;
 import com.ecamt35.messageservice.websocket.dispatch.WsContext;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.websocketx.*;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Map;
+import java.io.IOException;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -27,22 +25,24 @@ import java.util.concurrent.ExecutorService;
 @Slf4j
 public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
 
-    private final ObjectMapper objectMapper;
+    private final PacketCodec packetCodec;
     private final UserChannelRegistry userChannelRegistry;
-    private final ExecutorService virtualExecutor;
     private final MessageDispatcher dispatcher;
     private final String nodeName;
+    private final ChannelMailbox mailbox;
 
-    public WebSocketFrameHandler(ObjectMapper objectMapper,
+    public WebSocketFrameHandler(PacketCodec packetCodec,
                                  UserChannelRegistry userChannelRegistry,
                                  ExecutorService virtualExecutor,
                                  MessageDispatcher dispatcher,
-                                 String nodeName) {
-        this.objectMapper = objectMapper;
+                                 String nodeName,
+                                 int mailboxMaxDepth,
+                                 MailboxMetrics mailboxMetrics) {
+        this.packetCodec = packetCodec;
         this.userChannelRegistry = userChannelRegistry;
-        this.virtualExecutor = virtualExecutor;
         this.dispatcher = dispatcher;
         this.nodeName = nodeName;
+        this.mailbox = new ChannelMailbox(virtualExecutor, mailboxMaxDepth, mailboxMetrics);
     }
 
     /**
@@ -57,7 +57,7 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
 
     /**
      * 处理 WebSocket 生命周期事件。
-     * 在握手完成后立即回写当前节点名，便于客户端感知所连接节点。
+     * 在握手完成后记录协商的报文格式，并立即回写当前节点名，便于客户端感知所连接节点。
      *
      * @param ctx ChannelHandlerContext，连接上下文
      * @param evt 事件对象
@@ -65,11 +65,12 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
      */
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete handshake) {
             Channel ch = ctx.channel();
+            ch.attr(WireFormat.WIRE_FORMAT_KEY).set(WireFormat.fromSubprotocol(handshake.selectedSubprotocol()));
             ch.eventLoop().execute(() -> {
                 if (ch.isActive()) {
-                    ch.writeAndFlush(new TextWebSocketFrame(nodeName));
+                    ch.writeAndFlush(packetCodec.greetingFrame(WireFormat.of(ch), nodeName));
                 }
             });
             return;
@@ -85,7 +86,7 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) {
         userChannelRegistry.unregisterAsync(ctx.channel());
-        log.info("Connection closed: {}", ctx.channel().remoteAddress());
+        log.info("Connection closed: {}, mailbox: {}", ctx.channel().remoteAddress(), mailbox);
     }
 
     /**
@@ -119,64 +120,75 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
             ctx.writeAndFlush(closeFrame.retain()).addListener(future -> ctx.close());
             return;
         }
-        // 非文本帧直接忽略
-        if (!(frame instanceof TextWebSocketFrame)) {
+        // 与协商格式不符的数据帧直接忽略（json 只收文本帧，cbor 只收二进制帧）
+        WireFormat format = WireFormat.of(ctx.channel());
+        if (!packetCodec.accepts(format, frame)) {
             return;
         }
 
-        String text = ((TextWebSocketFrame) frame).text();
         Boolean isRegistered = ctx.channel().attr(UserChannelRegistry.REGISTERED_KEY).get();
+        boolean registered = isRegistered != null && isRegistered;
+
+        // 未注册时首包一律按注册载荷解析，已注册时按 handler 声明的载荷类型解析
+        CommonPacketDto<Object> packet;
+        IOException decodeError = null;
+        try {
+            packet = packetCodec.decode(format, frame,
+                    registered ? dispatcher::payloadType : type -> ClientRegisterDto.class);
+        } catch (IOException e) {
+            packet = null;
+            decodeError = e;
+        }
 
         // 未注册用户处理
-        if (isRegistered == null || !isRegistered) {
-            handleRegistration(ctx, text);
+        if (!registered) {
+            if (decodeError != null) {
+                log.info("Invalid {} format from {}", format, ctx.channel().remoteAddress(), decodeError);
+                sendRegisterNack(
+                        ctx.channel(),
+                        null,
+                        null,
+                        null,
+                        ProtocolErrorCodeConstant.BAD_REQUEST,
+                        "invalid register payload",
+                        "invalid " + format.subprotocol() + " format"
+                );
+                return;
+            }
+            handleRegistration(ctx, (ClientRegisterDto) packet.getData());
             return;
         }
 
         // 已注册用户处理消息转发
-        final CommonPacketDto packet;
-        try {
-            packet = objectMapper.readValue(text, CommonPacketDto.class);
-        } catch (JsonProcessingException e) {
-            new WsContext(ctx.channel(), objectMapper, userChannelRegistry)
-                    .send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, text));
+        if (decodeError != null) {
+            new WsContext(ctx.channel(), packetCodec, userChannelRegistry)
+                    .send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT,
+                            frame instanceof TextWebSocketFrame textFrame ? textFrame.text() : null));
             return;
         }
+        final CommonPacketDto<Object> dispatchPacket = packet;
 
+        // 同一连接的包按到达顺序串行执行
         final Channel ch = ctx.channel();
-        virtualExecutor.execute(() -> {
-            WsContext wsCtx = new WsContext(ch, objectMapper, userChannelRegistry);
-            dispatcher.dispatch(wsCtx, packet);
+        boolean accepted = mailbox.offer(() -> {
+            WsContext wsCtx = new WsContext(ch, packetCodec, userChannelRegistry);
+            dispatcher.dispatch(wsCtx, dispatchPacket);
         });
+        if (!accepted) {
+            log.warn("Mailbox full, close connection: {}, mailbox: {}", ch.remoteAddress(), mailbox);
+            ctx.close();
+        }
     }
 
     /**
      * 处理用户注册请求。
      *
      * @param ctx     ChannelHandlerContext，连接上下文
-     * @param message 接收到的消息内容
+     * @param data 已解析的注册载荷
      */
-    private void handleRegistration(ChannelHandlerContext ctx, String message) {
-        CommonPacketDto commonPacketDto;
-        try {
-            commonPacketDto = objectMapper.readValue(message, CommonPacketDto.class);
-        } catch (JsonProcessingException e) {
-            log.info("Invalid JSON format: {}", message, e);
-            sendRegisterNack(
-                    ctx.channel(),
-                    null,
-                    null,
-                    null,
-                    ProtocolErrorCodeConstant.BAD_REQUEST,
-                    "invalid register payload",
-                    "invalid json format"
-            );
-            return;
-        }
-
-        Map<String, Object> data = commonPacketDto.getData();
-        String requestId = data == null ? null : Convert.toStr(data.get("requestId"));
-        if (data == null || data.isEmpty()) {
+    private void handleRegistration(ChannelHandlerContext ctx, ClientRegisterDto data) {
+        String requestId = data == null ? null : data.requestId();
+        if (data == null) {
             sendRegisterNack(
                     ctx.channel(),
                     requestId,
@@ -189,8 +201,8 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
             ctx.close();
             return;
         }
-        String deviceId = Convert.toStr(data.get("deviceId"));
-        Long userId = Convert.toLong(data.get("userId"));
+        String deviceId = data.deviceId();
+        Long userId = data.userId();
 
         if (userId == null || deviceId == null || deviceId.isBlank()) {
             sendRegisterNack(
@@ -239,7 +251,7 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
      * @param deviceId  设备 ID
      */
     private void sendRegisterAck(Channel channel, String requestId, Long userId, String deviceId) {
-        new WsContext(channel, objectMapper, userChannelRegistry)
+        new WsContext(channel, packetCodec, userChannelRegistry)
                 .send(new PushVo(
                         PacketTypeConstant.SERVER_REGISTER_ACK,
                         new RegisterAckVo(
@@ -273,7 +285,7 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
                                   Integer code,
                                   String message,
                                   String errorDetail) {
-        new WsContext(channel, objectMapper, userChannelRegistry)
+        new WsContext(channel, packetCodec, userChannelRegistry)
                 .send(new PushVo(
                         PacketTypeConstant.SERVER_REGISTER_NACK,
                         new RegisterNackVo(
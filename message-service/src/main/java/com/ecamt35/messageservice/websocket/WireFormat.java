@@ -0,0 +1,50 @@
+package com.ecamt35.messageservice.websocket;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+/**
+ * 连接的报文编码格式，由 WebSocket 子协议（Sec-WebSocket-Protocol）协商：
+ * - json：TextWebSocketFrame + JSON（默认，未协商子协议时使用）
+ * - cbor：BinaryWebSocketFrame + CBOR（字段结构与 JSON 完全一致）
+ */
+public enum WireFormat {
+
+    JSON("json"),
+    CBOR("cbor");
+
+    public static final AttributeKey<WireFormat> WIRE_FORMAT_KEY = AttributeKey.valueOf("wireFormat");
+
+    private final String subprotocol;
+
+    WireFormat(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String subprotocol() {
+        return subprotocol;
+    }
+
+    /**
+     * 服务端支持的子协议列表（逗号分隔，交给 WebSocketServerProtocolHandler）
+     */
+    public static String supportedSubprotocols() {
+        return JSON.subprotocol + "," + CBOR.subprotocol;
+    }
+
+    public static WireFormat fromSubprotocol(String subprotocol) {
+        if (subprotocol != null) {
+            for (WireFormat f : values()) {
+                if (f.subprotocol.equalsIgnoreCase(subprotocol.trim())) {
+                    return f;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    public static WireFormat of(Channel channel) {
+        WireFormat f = channel.attr(WIRE_FORMAT_KEY).get();
+        return f == null ? JSON : f;
+    }
+}
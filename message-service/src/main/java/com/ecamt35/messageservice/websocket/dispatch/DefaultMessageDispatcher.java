@@ -11,12 +11,18 @@ import java.util.Map;
 @Slf4j
 public class DefaultMessageDispatcher implements MessageDispatcher {
 
-    private final Map<Integer, PacketHandler> handlerMap;
+    private final Map<Integer, PacketHandler<?>> handlerMap;
 
-    public DefaultMessageDispatcher(Map<Integer, PacketHandler> handlerMap) {
+    public DefaultMessageDispatcher(Map<Integer, PacketHandler<?>> handlerMap) {
         this.handlerMap = handlerMap;
     }
 
+    @Override
+    public Class<?> payloadType(Integer packetType) {
+        PacketHandler<?> handler = packetType == null ? null : handlerMap.get(packetType);
+        return handler == null ? null : handler.payloadType();
+    }
+
     /**
      * 根据 packetType 分发到对应 PacketHandler 执行。
      *
@@ -24,7 +30,8 @@ public class DefaultMessageDispatcher implements MessageDispatcher {
      * @param packet 报文通用格式包
      */
     @Override
-    public void dispatch(WsContext ctx, CommonPacketDto packet) {
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void dispatch(WsContext ctx, CommonPacketDto<?> packet) {
         if (packet == null || packet.getPacketType() == null) {
             ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, packet));
             return;
@@ -35,6 +42,7 @@ public class DefaultMessageDispatcher implements MessageDispatcher {
             ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, packet));
             return;
         }
-        handler.handle(ctx, packet);
+        // data 已在解码时按 handler.payloadType() 绑定
+        handler.handle(ctx, packet.getData());
     }
 }
\ No newline at end of file
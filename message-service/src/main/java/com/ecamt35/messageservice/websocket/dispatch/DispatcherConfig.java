@@ -16,8 +16,8 @@ public class DispatcherConfig {
      * 策略工厂，收集所有策略实现，构建策略注册表
      */
     @Bean
-    public MessageDispatcher messageDispatcher(List<PacketHandler> handlers) {
-        Map<Integer, PacketHandler> map = handlers.stream()
+    public MessageDispatcher messageDispatcher(List<PacketHandler<?>> handlers) {
+        Map<Integer, PacketHandler<?>> map = handlers.stream()
                 .collect(Collectors.toMap(PacketHandler::type, Function.identity()));
         return new DefaultMessageDispatcher(map);
     }
@@ -3,5 +3,11 @@ package com.ecamt35.messageservice.websocket.dispatch;
 import com.ecamt35.messageservice.model.dto.CommonPacketDto;
 
 public interface MessageDispatcher {
-    void dispatch(WsContext ctx, CommonPacketDto packet);
-}
\ No newline at end of file
+
+    /**
+     * packetType 对应的载荷类型，未知类型返回 null（解码时跳过 data）
+     */
+    Class<?> payloadType(Integer packetType);
+
+    void dispatch(WsContext ctx, CommonPacketDto<?> packet);
+}
@@ -1,11 +1,11 @@
 package com.ecamt35.messageservice.websocket.dispatch;
 
 import com.ecamt35.messageservice.model.vo.PushVo;
+import com.ecamt35.messageservice.websocket.PacketCodec;
 import com.ecamt35.messageservice.websocket.UserChannelRegistry;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ecamt35.messageservice.websocket.WireFormat;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -14,7 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 public class WsContext {
 
     public final Channel channel;
-    public final ObjectMapper objectMapper;
+    public final PacketCodec packetCodec;
     public final UserChannelRegistry userChannelRegistry;
 
     /**
@@ -23,25 +23,27 @@ public class WsContext {
      * @param pushVo（含 packetType/data）
      */
     public void send(PushVo pushVo) {
-        if (channel == null || !channel.isActive() || !channel.isWritable()) {
+        // 不可写时由 OutboundBackpressureHandler 排队，不在此丢弃
+        if (channel == null || !channel.isActive()) {
             log.warn("Channel inactive, skip send");
             return;
         }
-        final String json;
+        // 按连接协商的格式编码（JSON 文本帧 / CBOR 二进制帧）
+        final WebSocketFrame frame;
         try {
-            json = objectMapper.writeValueAsString(pushVo);
-        } catch (JsonProcessingException e) {
+            frame = packetCodec.encodeFrame(WireFormat.of(channel), pushVo);
+        } catch (Exception e) {
             log.warn("Serialize pushVo failed: {}", pushVo, e);
             return;
         }
 
         if (channel.eventLoop().inEventLoop()) {
             // 当前是 Channel 专属的 IO 线程，直接发送
-            channel.writeAndFlush(new TextWebSocketFrame(json));
+            channel.writeAndFlush(frame);
         } else {
             // 当前不是，提交到 EventLoop
             channel.eventLoop().execute(() ->
-                    channel.writeAndFlush(new TextWebSocketFrame(json))
+                    channel.writeAndFlush(frame)
             );
         }
     }
@@ -1,10 +1,19 @@
 package com.ecamt35.messageservice.websocket.handlers;
 
-import com.ecamt35.messageservice.model.dto.CommonPacketDto;
 import com.ecamt35.messageservice.websocket.dispatch.WsContext;
 
-public interface PacketHandler {
+/**
+ * 上行报文处理器
+ *
+ * @param <P> data 载荷类型，解码时直接从帧字节绑定（Void 表示忽略 data）
+ */
+public interface PacketHandler<P> {
     int type();
 
-    void handle(WsContext ctx, CommonPacketDto packet);
-}
\ No newline at end of file
+    Class<P> payloadType();
+
+    /**
+     * @param data 已绑定的载荷，客户端未携带 data 时为 null
+     */
+    void handle(WsContext ctx, P data);
+}
@@ -1,8 +1,7 @@
 package com.ecamt35.messageservice.websocket.handlers.impl;
 
-import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
-import com.ecamt35.messageservice.model.dto.CommonPacketDto;
+import com.ecamt35.messageservice.model.dto.ClientAckReadDto;
 import com.ecamt35.messageservice.model.vo.PushVo;
 import com.ecamt35.messageservice.service.CursorService;
 import com.ecamt35.messageservice.websocket.dispatch.WsContext;
@@ -15,7 +14,7 @@ import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
-public class ClientAckReadHandler implements PacketHandler {
+public class ClientAckReadHandler implements PacketHandler<ClientAckReadDto> {
 
     private final CursorService cursorService;
 
@@ -24,18 +23,21 @@ public class ClientAckReadHandler implements PacketHandler {
         return PacketTypeConstant.CLIENT_ACK_READ;
     }
 
+    @Override
+    public Class<ClientAckReadDto> payloadType() {
+        return ClientAckReadDto.class;
+    }
+
     /**
      * 推进 read 游标，落库 member
      *
-     * @param ctx    WebSocket上下文
-     * @param packet 报文通用格式包
+     * @param ctx  WebSocket上下文
+     * @param data 已读回执载荷
      */
     @Override
-    public void handle(WsContext ctx, CommonPacketDto packet) {
-        Map<String, Object> data = packet.getData();
-
-        Long convId = Convert.toLong(data.get("conversationId"));
-        Long readSeq = Convert.toLong(data.get("readSeq"));
+    public void handle(WsContext ctx, ClientAckReadDto data) {
+        Long convId = data == null ? null : data.conversationId();
+        Long readSeq = data == null ? null : data.readSeq();
 
         Long userId = ctx.currentUserId();
         if (userId == null || convId == null || readSeq == null) {
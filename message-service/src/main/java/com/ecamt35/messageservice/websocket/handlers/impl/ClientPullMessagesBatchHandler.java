@@ -0,0 +1,56 @@
+package com.ecamt35.messageservice.websocket.handlers.impl;
+
+import com.ecamt35.messageservice.constant.PacketTypeConstant;
+import com.ecamt35.messageservice.model.dto.ClientPullMessagesBatchDto;
+import com.ecamt35.messageservice.model.vo.PullMessagesBatchRespVo;
+import com.ecamt35.messageservice.model.vo.PushVo;
+import com.ecamt35.messageservice.service.MessageService;
+import com.ecamt35.messageservice.websocket.dispatch.WsContext;
+import com.ecamt35.messageservice.websocket.handlers.PacketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 多会话批量拉取：登录后 SUMMARY 之后一次拉取所有有未读会话的首屏消息
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientPullMessagesBatchHandler implements PacketHandler<ClientPullMessagesBatchDto> {
+
+    private final MessageService messageService;
+
+    @Override
+    public int type() {
+        return PacketTypeConstant.CLIENT_PULL_MESSAGES_BATCH;
+    }
+
+    @Override
+    public Class<ClientPullMessagesBatchDto> payloadType() {
+        return ClientPullMessagesBatchDto.class;
+    }
+
+    @Override
+    public void handle(WsContext ctx, ClientPullMessagesBatchDto data) {
+
+        Long userId = ctx.currentUserId();
+        if (userId == null) {
+            ctx.send(new PushVo(PacketTypeConstant.INSUFFICIENT_PERMISSIONS, null));
+            return;
+        }
+
+        if (data == null || data.pulls() == null) {
+            ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, null));
+            return;
+        }
+
+        PullMessagesBatchRespVo resp;
+        try {
+            resp = messageService.pullMessagesBatch(userId, data.pulls());
+        } catch (IllegalArgumentException ex) {
+            ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, ex.getMessage()));
+            return;
+        }
+
+        ctx.send(new PushVo(PacketTypeConstant.SERVER_MESSAGES_BATCH, resp));
+    }
+}
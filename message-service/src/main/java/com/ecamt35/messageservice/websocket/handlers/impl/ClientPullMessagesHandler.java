@@ -1,8 +1,7 @@
 package com.ecamt35.messageservice.websocket.handlers.impl;
 
-import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
-import com.ecamt35.messageservice.model.dto.CommonPacketDto;
+import com.ecamt35.messageservice.model.dto.ClientPullMessagesDto;
 import com.ecamt35.messageservice.model.vo.PullMessagesRespVo;
 import com.ecamt35.messageservice.model.vo.PushVo;
 import com.ecamt35.messageservice.service.MessageService;
@@ -11,11 +10,9 @@ import com.ecamt35.messageservice.websocket.handlers.PacketHandler;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-
 @Component
 @RequiredArgsConstructor
-public class ClientPullMessagesHandler implements PacketHandler {
+public class ClientPullMessagesHandler implements PacketHandler<ClientPullMessagesDto> {
 
     private final MessageService messageService;
 
@@ -25,7 +22,12 @@ public class ClientPullMessagesHandler implements PacketHandler {
     }
 
     @Override
-    public void handle(WsContext ctx, CommonPacketDto packet) {
+    public Class<ClientPullMessagesDto> payloadType() {
+        return ClientPullMessagesDto.class;
+    }
+
+    @Override
+    public void handle(WsContext ctx, ClientPullMessagesDto data) {
 
         Long userId = ctx.currentUserId();
         if (userId == null) {
@@ -33,19 +35,18 @@ public class ClientPullMessagesHandler implements PacketHandler {
             return;
         }
 
-        Map<String, Object> data = packet.getData();
-        if (data == null || data.isEmpty()) {
+        if (data == null) {
             ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, null));
             return;
         }
 
-        Long convId = Convert.toLong(data.get("conversationId"));
+        Long convId = data.conversationId();
         // ReadSeq≠AfterSeq
         // AfterSeq:客户端本地已拥有/已同步到哪的同步游标，多端情况下肯定会出现ReadSeq>AfterSeq
-        Long afterSeq = Convert.toLong(data.get("afterSeq"));
-        Integer limit = Convert.toInt(data.get("limit"));
+        Long afterSeq = data.afterSeq();
+        Integer limit = data.limit();
         // 客户端把 upperBoundSeq 设置为服务端上一次返回的值
-        Long upperBoundSeq = Convert.toLong(data.get("upperBoundSeq"));
+        Long upperBoundSeq = data.upperBoundSeq();
 
         if (convId == null) {
             ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, data));
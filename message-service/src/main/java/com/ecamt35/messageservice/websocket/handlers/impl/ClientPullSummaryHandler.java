@@ -1,7 +1,6 @@
 package com.ecamt35.messageservice.websocket.handlers.impl;
 
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
-import com.ecamt35.messageservice.model.dto.CommonPacketDto;
 import com.ecamt35.messageservice.model.vo.PushVo;
 import com.ecamt35.messageservice.service.SummaryService;
 import com.ecamt35.messageservice.websocket.dispatch.WsContext;
@@ -11,7 +10,7 @@ import org.springframework.stereotype.Component;
 
 @Component
 @RequiredArgsConstructor
-public class ClientPullSummaryHandler implements PacketHandler {
+public class ClientPullSummaryHandler implements PacketHandler<Void> {
 
     private final SummaryService summaryService;
 
@@ -20,14 +19,19 @@ public class ClientPullSummaryHandler implements PacketHandler {
         return PacketTypeConstant.CLIENT_PULL_SUMMARY;
     }
 
+    @Override
+    public Class<Void> payloadType() {
+        return Void.class;
+    }
+
     /**
      * 客户端请求才推
      *
-     * @param ctx    WebSocket上下文
-     * @param packet 报文通用格式包
+     * @param ctx  WebSocket上下文
+     * @param data 无载荷
      */
     @Override
-    public void handle(WsContext ctx, CommonPacketDto packet) {
+    public void handle(WsContext ctx, Void data) {
         Long userId = ctx.currentUserId();
         if (userId == null) {
             ctx.send(new PushVo(PacketTypeConstant.INSUFFICIENT_PERMISSIONS, null));
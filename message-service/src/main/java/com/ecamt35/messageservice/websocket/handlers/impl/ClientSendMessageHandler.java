@@ -1,8 +1,7 @@
 package com.ecamt35.messageservice.websocket.handlers.impl;
 
-import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
-import com.ecamt35.messageservice.model.dto.CommonPacketDto;
+import com.ecamt35.messageservice.model.dto.ClientSendMessageDto;
 import com.ecamt35.messageservice.model.entity.Message;
 import com.ecamt35.messageservice.model.vo.MessageAckVo;
 import com.ecamt35.messageservice.model.vo.PushVo;
@@ -13,12 +12,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class ClientSendMessageHandler implements PacketHandler {
+public class ClientSendMessageHandler implements PacketHandler<ClientSendMessageDto> {
 
     private final MessageCommandService commandService;
 
@@ -28,21 +25,25 @@ public class ClientSendMessageHandler implements PacketHandler {
     }
 
     @Override
-    public void handle(WsContext ctx, CommonPacketDto packet) {
-        if (packet == null || packet.getData() == null || packet.getData().isEmpty()) {
+    public Class<ClientSendMessageDto> payloadType() {
+        return ClientSendMessageDto.class;
+    }
+
+    @Override
+    public void handle(WsContext ctx, ClientSendMessageDto data) {
+        if (data == null) {
             ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, null));
             return;
         }
-        Map<String, Object> data = packet.getData();
 
-        String content = Convert.toStr(data.get("content"));
-        Long clientMsgId = Convert.toLong(data.get("clientMsgId"));
+        String content = data.content();
+        Long clientMsgId = data.clientMsgId();
         // 0=private,1=group
-        Integer chatType = Convert.toInt(data.get("chatType"));
-        Integer msgType = Convert.toInt(data.get("msgType"));
+        Integer chatType = data.chatType();
+        Integer msgType = data.msgType();
 
-        Long receiverId = Convert.toLong(data.get("receiverId"));         // private 需要
-        Long conversationId = Convert.toLong(data.get("conversationId")); // group 需要
+        Long receiverId = data.receiverId();         // private 需要
+        Long conversationId = data.conversationId(); // group 需要
 
         if (clientMsgId == null || chatType == null || msgType == null) {
             ctx.send(new PushVo(PacketTypeConstant.INVALID_MESSAGE_FORMAT, data));
@@ -4,7 +4,7 @@ import cn.hutool.core.convert.Convert;
 import com.ecamt35.messageservice.constant.BusinessErrorCodeConstant;
 import com.ecamt35.messageservice.constant.PacketTypeConstant;
 import com.ecamt35.messageservice.constant.ProtocolErrorCodeConstant;
-import com.ecamt35.messageservice.model.dto.CommonPacketDto;
+import com.ecamt35.messageservice.model.dto.ClientRelationCommandDto;
 import com.ecamt35.messageservice.model.vo.PushVo;
 import com.ecamt35.messageservice.model.vo.RelationAckVo;
 import com.ecamt35.messageservice.service.RelationDomainService;
@@ -20,7 +20,7 @@ import java.util.Map;
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class RelationCommandHandler implements PacketHandler {
+public class RelationCommandHandler implements PacketHandler<ClientRelationCommandDto> {
 
     private final RelationDomainService relationDomainService;
 
@@ -30,10 +30,14 @@ public class RelationCommandHandler implements PacketHandler {
     }
 
     @Override
-    public void handle(WsContext ctx, CommonPacketDto packet) {
-        Map<String, Object> data = packet.getData();
-        String requestId = data == null ? null : Convert.toStr(data.get("requestId"));
-        String op = data == null ? null : Convert.toStr(data.get("op"));
+    public Class<ClientRelationCommandDto> payloadType() {
+        return ClientRelationCommandDto.class;
+    }
+
+    @Override
+    public void handle(WsContext ctx, ClientRelationCommandDto data) {
+        String requestId = data == null ? null : data.requestId();
+        String op = data == null ? null : data.op();
 
         Long userId = ctx.currentUserId();
         if (userId == null) {
@@ -41,7 +45,7 @@ public class RelationCommandHandler implements PacketHandler {
             return;
         }
 
-        if (data == null || data.isEmpty()) {
+        if (data == null) {
             sendAck(ctx, requestId, op, ProtocolErrorCodeConstant.BAD_REQUEST, "data is required", null);
             return;
         }
@@ -52,7 +56,7 @@ public class RelationCommandHandler implements PacketHandler {
         }
 
         Map<String, Object> payload;
-        Object payloadObj = data.get("payload");
+        Object payloadObj = data.payload();
         if (payloadObj == null) {
             payload = Collections.emptyMap();
         } else if (payloadObj instanceof Map<?, ?>) {
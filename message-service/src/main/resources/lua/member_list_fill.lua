@@ -0,0 +1,25 @@
+-- 回源后写入会话成员集合（版本 fencing）
+-- KEYS[1] = 成员集合 key, KEYS[2] = 版本 key
+-- ARGV[1] = 回源前读取的版本, ARGV[2] = ttlSeconds, ARGV[3..] = 成员 userId
+-- return 写入后的版本；-1 表示回源期间版本已变化（发生过成员变更），放弃写入
+local ver = redis.call('GET', KEYS[2]) or '0'
+if ver ~= ARGV[1] then
+  return -1
+end
+redis.call('DEL', KEYS[1])
+-- 空占位，区分“空成员列表”与“未缓存”
+redis.call('SADD', KEYS[1], '-')
+local batch = {}
+for i = 3, #ARGV do
+  batch[#batch + 1] = ARGV[i]
+  if #batch >= 1000 then
+    redis.call('SADD', KEYS[1], unpack(batch))
+    batch = {}
+  end
+end
+if #batch > 0 then
+  redis.call('SADD', KEYS[1], unpack(batch))
+end
+redis.call('SET', KEYS[2], ver, 'EX', ARGV[2])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return tonumber(ver)
@@ -0,0 +1,14 @@
+-- 读取会话成员集合与版本（同一脚本内读取，保证二者一致）
+-- KEYS[1] = 成员集合 key, KEYS[2] = 版本 key
+-- return {version, exists('1'/'0'), member...}；集合只含空占位时成员部分为空
+local ver = redis.call('GET', KEYS[2]) or '0'
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return {ver, '0'}
+end
+local result = {ver, '1'}
+for _, m in ipairs(redis.call('SMEMBERS', KEYS[1])) do
+  if m ~= '-' then
+    result[#result + 1] = m
+  end
+end
+return result
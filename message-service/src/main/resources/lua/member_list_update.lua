@@ -0,0 +1,19 @@
+-- 会话成员集合增量更新并递增版本
+-- KEYS[1] = 成员集合 key, KEYS[2] = 版本 key
+-- ARGV[1] = 操作('add'/'rem'/'clear'), ARGV[2] = 成员 userId, ARGV[3] = ttlSeconds
+-- 集合未缓存时只递增版本（下次读取回源）；return 新版本
+if ARGV[1] == 'clear' then
+  redis.call('DEL', KEYS[1])
+  redis.call('SADD', KEYS[1], '-')
+  redis.call('EXPIRE', KEYS[1], ARGV[3])
+elseif redis.call('EXISTS', KEYS[1]) == 1 then
+  if ARGV[1] == 'add' then
+    redis.call('SADD', KEYS[1], ARGV[2])
+  else
+    redis.call('SREM', KEYS[1], ARGV[2])
+  end
+  redis.call('EXPIRE', KEYS[1], ARGV[3])
+end
+local ver = redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[2], ARGV[3])
+return ver
@@ -0,0 +1,23 @@
+-- 尾部消息环内存记账批量写入（单个分片，KEYS 通过 hash tag 位于同一 slot）
+-- KEYS[1] = 活跃度 ZSET, KEYS[2] = 各环字节数 Hash, KEYS[3] = 分片总字节数
+-- ARGV 按 4 个一组：convId, 字节数变化, 是否重置('1'：环曾过期/被淘汰后重新创建，先清掉残留记账), 最近写入时间 millis
+for i = 1, #ARGV, 4 do
+  local convId = ARGV[i]
+  if ARGV[i + 2] == '1' then
+    local stale = tonumber(redis.call('HGET', KEYS[2], convId) or '0')
+    if stale ~= 0 then
+      redis.call('HDEL', KEYS[2], convId)
+      redis.call('DECRBY', KEYS[3], stale)
+    end
+  end
+  local delta = tonumber(ARGV[i + 1])
+  if delta ~= 0 then
+    redis.call('HINCRBY', KEYS[2], convId, delta)
+    redis.call('INCRBY', KEYS[3], delta)
+  end
+  local last = redis.call('ZSCORE', KEYS[1], convId)
+  if (not last) or tonumber(last) < tonumber(ARGV[i + 3]) then
+    redis.call('ZADD', KEYS[1], ARGV[i + 3], convId)
+  end
+end
+return 1
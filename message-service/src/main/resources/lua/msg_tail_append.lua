@@ -0,0 +1,18 @@
+-- 会话尾部消息环追加（按 seq 排序的 ZSET，超出容量淘汰最旧 seq），只访问环自身一个 key
+-- KEYS[1] = 环 key
+-- ARGV[1] = seq, ARGV[2] = 消息 JSON, ARGV[3] = 环容量, ARGV[4] = ttlSeconds
+-- return {本次字节数变化, 追加前环是否不存在('1'/'0')}，内存记账由调用方本地聚合后按分片批量写入
+local fresh = redis.call('EXISTS', KEYS[1]) == 0
+local delta = 0
+if redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) == 1 then
+  delta = #ARGV[2]
+end
+local over = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[3])
+if over > 0 then
+  for _, m in ipairs(redis.call('ZRANGE', KEYS[1], 0, over - 1)) do
+    delta = delta - #m
+  end
+  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, over - 1)
+end
+redis.call('EXPIRE', KEYS[1], ARGV[4])
+return {delta, fresh and 1 or 0}
@@ -0,0 +1,27 @@
+-- 尾部消息环淘汰选择（单个分片）：先选空闲超时的会话，再按活跃度从最久未写入的会话开始，直到分片字节数回到预算内
+-- 只维护记账，环 key 由调用方按返回的 convId 删除
+-- KEYS[1] = 活跃度 ZSET, KEYS[2] = 各环字节数 Hash, KEYS[3] = 分片总字节数
+-- ARGV[1] = 分片字节预算, ARGV[2] = 单次最多淘汰数, ARGV[3] = 空闲截止时间 millis
+-- return 被淘汰的 convId 列表
+local budget = tonumber(ARGV[1])
+local idleBefore = tonumber(ARGV[3])
+local total = tonumber(redis.call('GET', KEYS[3]) or '0')
+local evicted = {}
+while #evicted < tonumber(ARGV[2]) do
+  local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+  if #oldest == 0 then
+    break
+  end
+  if total <= budget and tonumber(oldest[2]) >= idleBefore then
+    break
+  end
+  local convId = oldest[1]
+  redis.call('ZREM', KEYS[1], convId)
+  local bytes = tonumber(redis.call('HGET', KEYS[2], convId) or '0')
+  redis.call('HDEL', KEYS[2], convId)
+  if bytes ~= 0 then
+    total = redis.call('DECRBY', KEYS[3], bytes)
+  end
+  evicted[#evicted + 1] = convId
+end
+return evicted
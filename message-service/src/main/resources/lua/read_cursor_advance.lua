@@ -0,0 +1,19 @@
+-- read 游标 max(old,new)，推进时登记到本节点的待落库集合（write-behind 崩溃恢复用）
+-- KEYS[1] = im:read:{userId}, KEYS[2] = im:read:dirty:{node}
+-- ARGV[1] = field(convId), ARGV[2] = value(seq), ARGV[3] = ttlSeconds, ARGV[4] = dirty member(userId:convId), ARGV[5] = nowMillis
+local old = redis.call('HGET', KEYS[1], ARGV[1])
+local ttl = tonumber(ARGV[3])
+
+if (not old) or (tonumber(ARGV[2]) > tonumber(old)) then
+  redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+  if ttl and ttl > 0 then
+    redis.call('EXPIRE', KEYS[1], ttl)
+  end
+  redis.call('ZADD', KEYS[2], ARGV[5], ARGV[4])
+  return tonumber(ARGV[2])
+end
+
+if ttl and ttl > 0 then
+  redis.call('EXPIRE', KEYS[1], ttl)
+end
+return tonumber(old)
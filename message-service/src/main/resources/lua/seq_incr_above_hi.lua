@@ -0,0 +1,20 @@
+-- 关闭 owner 模式后的 seq 分配：lastSeq 存在才 INCR；不存在返回 -1（调用方走 DB 兜底）
+-- 残留的号段上界 hi 大于 lastSeq 时先把 lastSeq 抬到 hi（owner 崩溃前已发放、尚未 checkpoint 的 seq 不会被重复分配），hi 用后删除
+-- KEYS[1] = 会话 lastSeq, KEYS[2] = 号段上界 hi
+-- ARGV[1] = ttlSeconds
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return -1
+end
+local hi = redis.call('GET', KEYS[2])
+if hi then
+  if tonumber(hi) > tonumber(redis.call('GET', KEYS[1])) then
+    redis.call('SET', KEYS[1], hi)
+  end
+  redis.call('DEL', KEYS[2])
+end
+local v = redis.call('INCR', KEYS[1])
+local ttl = tonumber(ARGV[1])
+if ttl and ttl > 0 then
+  redis.call('EXPIRE', KEYS[1], ttl)
+end
+return v
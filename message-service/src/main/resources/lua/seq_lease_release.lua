@@ -0,0 +1,21 @@
+-- 释放会话 seq 租约：checkpoint lastSeq，并把未发放的号段归还，下一任 owner 从已发放位置续接，避免 seq 空洞
+-- KEYS[1] = 租约 key, KEYS[2] = 号段上界 hi, KEYS[3] = 会话 lastSeq
+-- ARGV[1] = fence, ARGV[2] = lastIssued, ARGV[3] = 归还后的 hi（>= lastIssued）, ARGV[4] = ttlSeconds
+-- 返回 1 成功，0 租约已不属于该 fence（不做任何修改）
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+  return 0
+end
+local v = tonumber(ARGV[2])
+if v > 0 then
+  local old = tonumber(redis.call('GET', KEYS[3]) or '0')
+  if v > old then
+    redis.call('SET', KEYS[3], ARGV[2], 'EX', ARGV[4])
+  end
+end
+local floor = tonumber(ARGV[3])
+local hi = tonumber(redis.call('GET', KEYS[2]) or '0')
+if hi > floor then
+  redis.call('SET', KEYS[2], ARGV[3], 'EX', ARGV[4])
+end
+redis.call('DEL', KEYS[1])
+return 1
@@ -0,0 +1,16 @@
+-- 续租并 checkpoint 会话 lastSeq（只增不减）
+-- KEYS[1] = 租约 key, KEYS[2] = 会话 lastSeq
+-- ARGV[1] = fence, ARGV[2] = leaseTtlMillis, ARGV[3] = lastIssued, ARGV[4] = lastSeq ttlSeconds
+-- 返回 1 成功，0 租约已丢失
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+  return 0
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+local v = tonumber(ARGV[3])
+if v > 0 then
+  local old = tonumber(redis.call('GET', KEYS[2]) or '0')
+  if v > old then
+    redis.call('SET', KEYS[2], ARGV[3], 'EX', ARGV[4])
+  end
+end
+return 1
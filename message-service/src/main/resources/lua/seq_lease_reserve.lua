@@ -0,0 +1,35 @@
+-- 会话 seq 归属租约 + 号段预留（fencing）
+-- KEYS[1] = 租约 key（值为 fence = node:epoch），KEYS[2] = 号段上界 hi，KEYS[3] = 会话 lastSeq
+-- ARGV[1] = fence, ARGV[2] = leaseTtlMillis, ARGV[3] = blockSize, ARGV[4] = dbMaxSeq（未知为 -1）
+-- ARGV[5] = 是否允许新获取租约('1'/'0'), ARGV[6] = hi/lastSeq 的 ttlSeconds
+-- 返回 {code, start, end}：
+--   1 成功，发放区间 [start, end]
+--  -1 租约被其他 fence 持有
+--  -2 续用的租约已丢失（过期）
+--  -3 hi 不存在且未提供 dbMaxSeq，调用方查询 DB 后重试
+local cur = redis.call('GET', KEYS[1])
+if cur and cur ~= ARGV[1] then
+  return {-1, 0, 0}
+end
+if (not cur) and ARGV[5] ~= '1' then
+  return {-2, 0, 0}
+end
+
+local hi = redis.call('GET', KEYS[2])
+if hi then
+  -- 关闭 owner 模式期间 lastSeq 由 INCR 推进，可能已越过残留的 hi，重新开启时从较大值续接
+  hi = math.max(tonumber(hi), tonumber(redis.call('GET', KEYS[3]) or '0'))
+else
+  local db = tonumber(ARGV[4])
+  if db < 0 then
+    return {-3, 0, 0}
+  end
+  -- 首次进入 owner 模式：从 Redis lastSeq 与 DB max(seq) 的较大值续接
+  local last = tonumber(redis.call('GET', KEYS[3]) or '0')
+  hi = math.max(last, db)
+end
+
+local newHi = hi + tonumber(ARGV[3])
+redis.call('SET', KEYS[2], newHi, 'EX', ARGV[6])
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+return {1, hi + 1, newHi}
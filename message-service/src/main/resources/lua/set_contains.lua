@@ -0,0 +1,10 @@
+-- 集合成员判断（缓存未命中与“不是成员”区分开）
+-- KEYS[1] = set key, ARGV[1] = member
+-- return 1=是成员, 0=集合存在（含空集合占位）但不是成员, -1=集合不存在（需回源）
+if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then
+  return 1
+end
+if redis.call('EXISTS', KEYS[1]) == 1 then
+  return 0
+end
+return -1
@@ -0,0 +1,42 @@
+-- 设备路由注册（CAS）：本次注册的 regToken 不小于已存路由的 regToken 时才覆盖，并返回旧路由
+-- hash 中的值与 RedisTemplate 的 JSON hash 序列化保持一致（JSON 字符串），其他节点按原方式读取
+-- ARGV[1] = node, ARGV[2] = sessionId, ARGV[3] = regToken, ARGV[4] = ts, ARGV[5] = ttlSeconds
+-- 返回 {applied('1'/'0'), oldNode, oldSessionId}，旧值不存在时为空串
+local function dec(v)
+  if not v then
+    return ''
+  end
+  local ok, s = pcall(cjson.decode, v)
+  if ok and type(s) == 'string' then
+    return s
+  end
+  return v
+end
+
+-- 十进制字符串比较（snowflake 超出 Lua 双精度范围，不能 tonumber）
+local function greater(a, b)
+  if #a ~= #b then
+    return #a > #b
+  end
+  return a > b
+end
+
+local old = redis.call('HMGET', KEYS[1], 'node', 'sessionId', 'regToken')
+local oldNode = dec(old[1])
+local oldSid = dec(old[2])
+local oldToken = dec(old[3])
+
+if oldToken ~= '' and greater(oldToken, ARGV[3]) then
+  return {'0', oldNode, oldSid}
+end
+
+redis.call('HSET', KEYS[1],
+  'node', cjson.encode(ARGV[1]),
+  'sessionId', cjson.encode(ARGV[2]),
+  'regToken', cjson.encode(ARGV[3]),
+  'ts', cjson.encode(ARGV[4]))
+local ttl = tonumber(ARGV[5])
+if ttl and ttl > 0 then
+  redis.call('EXPIRE', KEYS[1], ttl)
+end
+return {'1', oldNode, oldSid}
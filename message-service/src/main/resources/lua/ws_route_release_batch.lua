@@ -0,0 +1,17 @@
+-- 批量释放设备路由：KEYS[i] 的 sessionId 与 ARGV[i] 匹配才删除，避免误删已被新连接覆盖的路由
+-- 返回实际删除数
+local released = 0
+for i, key in ipairs(KEYS) do
+  local v = redis.call('HGET', key, 'sessionId')
+  if v then
+    local ok, sid = pcall(cjson.decode, v)
+    if not ok or type(sid) ~= 'string' then
+      sid = v
+    end
+    if sid == ARGV[i] then
+      redis.call('DEL', key)
+      released = released + 1
+    end
+  end
+end
+return released
@@ -0,0 +1,314 @@
+package com.ecamt35.messageservice.config;
+
+import com.ecamt35.messageservice.service.NacosManualRegistrationService;
+import com.ecamt35.messageservice.websocket.CompressionMetrics;
+import com.ecamt35.messageservice.websocket.MailboxMetrics;
+import com.ecamt35.messageservice.websocket.PacketCodec;
+import com.ecamt35.messageservice.websocket.UserChannelRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NettyServer 连接风暴压测（独立 main，不依赖 Redis/Nacos 与 Spring 容器）：
+ * <p>
+ * 1) 按场景启动真实 NettyServer（完整 WebSocket pipeline，端口 0）：nio、epoll、epoll + SO_REUSEPORT（acceptors 个监听 socket）
+ * 2) 客户端 NIO EventLoop 一次性发起 connections 个连接，各自完成 WebSocket 握手（收到 101），全部完成后统一关闭
+ * 3) 输出连接速率（握手完成数 / 从首个 connect 到最后一个握手完成的时间）、握手延迟 p50/p99/max 与失败数
+ * <p>
+ * 指定的 native 传输不可用时 NettyServer 回退 NIO，结果表 actual 列为实际生效的传输。
+ * 客户端以 SO_LINGER=0 关闭连接，避免多轮压测耗尽本地端口（TIME_WAIT）。
+ * <p>
+ * 运行（在 message-service 目录）：
+ * <pre>
+ * mvn -o test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.ecamt35.messageservice.config.NettyServerConnectionStormBenchmark
+ * </pre>
+ * 参数（-D）：bench.scenarios=nio,epoll,epoll-reuseport  bench.connections=1000  bench.rounds=3  bench.warmup-rounds=1
+ * bench.acceptors=4  bench.client-threads=CPU 核数  bench.timeout-seconds=30
+ */
+public class NettyServerConnectionStormBenchmark {
+
+    private static final String PATH = "/ws";
+
+    public static void main(String[] args) throws Exception {
+        List<String> scenarios = Arrays.stream(System.getProperty("bench.scenarios", "nio,epoll,epoll-reuseport").split(","))
+                .map(String::trim)
+                .toList();
+        int connections = Integer.getInteger("bench.connections", 1000);
+        int rounds = Integer.getInteger("bench.rounds", 3);
+        int warmupRounds = Integer.getInteger("bench.warmup-rounds", 1);
+        int acceptors = Integer.getInteger("bench.acceptors", 4);
+        int clientThreads = Integer.getInteger("bench.client-threads", Runtime.getRuntime().availableProcessors());
+        int timeoutSeconds = Integer.getInteger("bench.timeout-seconds", 30);
+
+        System.out.printf("connections=%d, rounds=%d, warmupRounds=%d, acceptors=%d, clientThreads=%d%n",
+                connections, rounds, warmupRounds, acceptors, clientThreads);
+        System.out.printf("%-18s %-7s %12s %10s %10s %10s %8s%n",
+                "scenario", "actual", "conn/s", "p50Ms", "p99Ms", "maxMs", "failed");
+
+        EventLoopGroup clientGroup = new NioEventLoopGroup(clientThreads);
+        ExecutorService virtualExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (String scenario : scenarios) {
+                boolean reusePort = scenario.endsWith("-reuseport");
+                String transport = reusePort ? scenario.substring(0, scenario.length() - "-reuseport".length()) : scenario;
+
+                NettyServer server = newServer(transport, reusePort, acceptors, virtualExecutor);
+                server.start();
+                try {
+                    int port = boundPort(server);
+                    String actual = String.valueOf(NettyTransport.select(transport));
+                    for (int i = 0; i < warmupRounds; i++) {
+                        storm(clientGroup, port, connections, timeoutSeconds);
+                    }
+                    List<Long> samples = new ArrayList<>();
+                    long failed = 0;
+                    long elapsedNanos = 0;
+                    for (int i = 0; i < rounds; i++) {
+                        StormResult r = storm(clientGroup, port, connections, timeoutSeconds);
+                        samples.addAll(r.latencies());
+                        failed += r.failed();
+                        elapsedNanos += r.elapsedNanos();
+                    }
+                    long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+                    System.out.printf("%-18s %-7s %12.0f %10.2f %10.2f %10.2f %8d%n",
+                            scenario, actual,
+                            elapsedNanos == 0 ? 0.0 : sorted.length * 1e9 / elapsedNanos,
+                            percentile(sorted, 0.50) / 1e6,
+                            percentile(sorted, 0.99) / 1e6,
+                            sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6,
+                            failed);
+                } finally {
+                    server.stop();
+                }
+            }
+        } finally {
+            clientGroup.shutdownGracefully().syncUninterruptibly();
+            virtualExecutor.shutdownNow();
+        }
+    }
+
+    private record StormResult(List<Long> latencies, long failed, long elapsedNanos) {
+    }
+
+    /**
+     * 一轮风暴：同时发起 connections 个连接并握手，全部结束（成功/失败/超时）后关闭
+     */
+    private static StormResult storm(EventLoopGroup clientGroup, int port, int connections, int timeoutSeconds)
+            throws Exception {
+        URI uri = new URI("ws://127.0.0.1:" + port + PATH);
+        CountDownLatch done = new CountDownLatch(connections);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong lastDoneNanos = new AtomicLong();
+        List<Channel> channels = new ArrayList<>(connections);
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_LINGER, 0)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            long connectNanos = System.nanoTime();
+            WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory.newHandshaker(
+                    uri, WebSocketVersion.V13, null, true, EmptyHttpHeaders.INSTANCE, 65536);
+            HandshakeHandler handler = new HandshakeHandler(handshaker, connectNanos, done, latencies, failed, lastDoneNanos);
+            ChannelFuture f = bootstrap.clone()
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpClientCodec());
+                            ch.pipeline().addLast(new HttpObjectAggregator(65536));
+                            ch.pipeline().addLast(handler);
+                        }
+                    })
+                    .connect(new InetSocketAddress("127.0.0.1", port));
+            f.addListener(cf -> {
+                if (!cf.isSuccess()) {
+                    handler.fail();
+                }
+            });
+            channels.add(f.channel());
+        }
+
+        if (!done.await(timeoutSeconds, TimeUnit.SECONDS)) {
+            failed.addAndGet(done.getCount());
+        }
+        long elapsed = Math.max(0, lastDoneNanos.get() - start);
+        for (Channel ch : channels) {
+            ch.close();
+        }
+        for (Channel ch : channels) {
+            ch.closeFuture().awaitUninterruptibly(timeoutSeconds, TimeUnit.SECONDS);
+        }
+        return new StormResult(new ArrayList<>(latencies), failed.get(), elapsed);
+    }
+
+    /**
+     * 连接建立后发送握手请求，收到 101 记录从发起 connect 到握手完成的耗时
+     */
+    private static final class HandshakeHandler extends SimpleChannelInboundHandler<Object> {
+
+        private final WebSocketClientHandshaker handshaker;
+        private final long connectNanos;
+        private final CountDownLatch done;
+        private final ConcurrentLinkedQueue<Long> latencies;
+        private final AtomicLong failed;
+        private final AtomicLong lastDoneNanos;
+        private boolean finished;
+
+        HandshakeHandler(WebSocketClientHandshaker handshaker, long connectNanos, CountDownLatch done,
+                         ConcurrentLinkedQueue<Long> latencies, AtomicLong failed, AtomicLong lastDoneNanos) {
+            this.handshaker = handshaker;
+            this.connectNanos = connectNanos;
+            this.done = done;
+            this.latencies = latencies;
+            this.failed = failed;
+            this.lastDoneNanos = lastDoneNanos;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            handshaker.handshake(ctx.channel());
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+            // 握手完成后的下行帧（节点问候）直接丢弃
+            if (handshaker.isHandshakeComplete() || !(msg instanceof FullHttpResponse response)) {
+                return;
+            }
+            try {
+                handshaker.finishHandshake(ctx.channel(), response);
+            } catch (Exception e) {
+                fail();
+                return;
+            }
+            long now = System.nanoTime();
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+            }
+            latencies.add(now - connectNanos);
+            lastDoneNanos.accumulateAndGet(now, Math::max);
+            done.countDown();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            fail();
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (!handshaker.isHandshakeComplete()) {
+                fail();
+            }
+        }
+
+        synchronized void fail() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            failed.incrementAndGet();
+            done.countDown();
+        }
+    }
+
+    private static NettyServer newServer(String transport, boolean reusePort, int acceptors, ExecutorService virtualExecutor) {
+        NettyServer server = new NettyServer();
+        setField(server, "port", 0);
+        setField(server, "nodeName", "bench-node");
+        setField(server, "path", PATH);
+        setField(server, "maxFrameSize", 65536);
+        setField(server, "idleTimeout", 60);
+        setField(server, "writeBufferLowWaterMark", 32768);
+        setField(server, "writeBufferHighWaterMark", 131072);
+        setField(server, "outboundMaxPending", 256);
+        setField(server, "outboundOverflowPolicy", "collapse");
+        setField(server, "mailboxMaxDepth", 1024);
+        setField(server, "mailboxStatsLogIntervalSeconds", 0);
+        setField(server, "binaryEnabled", true);
+        setField(server, "transport", transport);
+        setField(server, "workerThreads", 0);
+        setField(server, "reusePort", reusePort);
+        setField(server, "acceptorThreads", acceptors);
+        setField(server, "tcpFastOpen", 0);
+        setField(server, "edgeTriggered", true);
+
+        // 握手阶段不会分发业务报文，messageDispatcher 留空；Nacos 手动注册默认关闭
+        setField(server, "packetCodec", new PacketCodec(new ObjectMapper()));
+        setField(server, "userChannelRegistry", new UserChannelRegistry());
+        setField(server, "virtualExecutor", virtualExecutor);
+        setField(server, "nacosManualRegistrationService",
+                new NacosManualRegistrationService(new NacosManualRegistrationProperties(), new StandardEnvironment()));
+        setField(server, "compressionProperties", new WebSocketCompressionProperties());
+        setField(server, "compressionMetrics", new CompressionMetrics());
+        setField(server, "mailboxMetrics", new MailboxMetrics());
+        return server;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int boundPort(NettyServer server) {
+        Field field = ReflectionUtils.findField(NettyServer.class, "serverChannels");
+        ReflectionUtils.makeAccessible(field);
+        List<Channel> channels = (List<Channel>) ReflectionUtils.getField(field, server);
+        return ((InetSocketAddress) channels.getFirst().localAddress()).getPort();
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException("Field not found: " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
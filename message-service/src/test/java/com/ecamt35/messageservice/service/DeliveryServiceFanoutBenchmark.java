@@ -0,0 +1,284 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.model.bo.MessageDispatchBo;
+import com.ecamt35.messageservice.model.bo.SendMessageBo;
+import com.ecamt35.messageservice.websocket.PushFrameEncoder;
+import com.ecamt35.messageservice.websocket.UserChannelRegistry;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DeliveryService 群消息扇出压测（独立 main，不依赖 Redis/RabbitMQ 与 Spring 容器）：
+ * <p>
+ * 1) RedisTemplate 以子类 + 动态代理模拟：单条命令与一次 pipeline 各计一次往返（RTT + 每条命令耗时）
+ * 2) RabbitTemplate 以子类模拟：每次 convertAndSend 计一次发布耗时
+ * 3) 对每个成员规模，比较 deliverToMembers（按批 pipeline + 按节点聚合）与旧的逐成员逐设备循环
+ * （HGETALL user:devices + 每设备 HMGET ws:online + 每个远端设备一次发布，即改造前 MessageDispatchService 的调用方式）
+ * 4) 输出单条消息扇出延迟 avg/p50/p99、每条消息的 Redis 往返数与 MQ 发布数
+ * <p>
+ * 所有在线设备均路由到远端节点（本地 Channel 写入与两种路径无关，不计入）。
+ * <p>
+ * 运行（在 message-service 目录）：
+ * <pre>
+ * mvn -o test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.ecamt35.messageservice.service.DeliveryServiceFanoutBenchmark
+ * </pre>
+ * 参数（-D）：bench.members=100,500,2000  bench.iterations=10  bench.warmup=2  bench.devices=2  bench.online-percent=70
+ * bench.nodes=4  bench.rtt-micros=200  bench.command-micros=2  bench.publish-micros=50  bench.route-batch-size=500
+ */
+public class DeliveryServiceFanoutBenchmark {
+
+    private static final String LOCAL_NODE = "bench-local";
+
+    public static void main(String[] args) {
+        int[] sizes = Arrays.stream(System.getProperty("bench.members", "100,500,2000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        int iterations = Integer.getInteger("bench.iterations", 10);
+        int warmup = Integer.getInteger("bench.warmup", 2);
+        int devices = Integer.getInteger("bench.devices", 2);
+        int onlinePercent = Integer.getInteger("bench.online-percent", 70);
+        int nodes = Integer.getInteger("bench.nodes", 4);
+        long rttMicros = Long.getLong("bench.rtt-micros", 200);
+        long commandMicros = Long.getLong("bench.command-micros", 2);
+        long publishMicros = Long.getLong("bench.publish-micros", 50);
+        int routeBatchSize = Integer.getInteger("bench.route-batch-size", 500);
+
+        SimulatedCluster cluster = new SimulatedCluster(devices, onlinePercent, nodes,
+                rttMicros, commandMicros, publishMicros);
+        DeliveryService service = newService(cluster, routeBatchSize);
+
+        System.out.printf("iterations=%d, devices=%d, online=%d%%, nodes=%d, rttUs=%d, commandUs=%d, publishUs=%d, routeBatchSize=%d%n",
+                iterations, devices, onlinePercent, nodes, rttMicros, commandMicros, publishMicros, routeBatchSize);
+        System.out.printf("%-8s %-8s %10s %10s %10s %12s %12s%n",
+                "members", "path", "avgMs", "p50Ms", "p99Ms", "redisRtt/msg", "publish/msg");
+
+        for (int size : sizes) {
+            List<Long> memberIds = new ArrayList<>(size);
+            for (long uid = 1; uid <= size; uid++) {
+                memberIds.add(uid);
+            }
+            MessageDispatchBo dispatchBo = new MessageDispatchBo(1L, 1L, 2, 1, 0L, "benchmark", System.currentTimeMillis(), 1L, 1L);
+
+            report(size, "legacy", cluster, warmup, iterations, () -> legacyFanout(service, dispatchBo, memberIds));
+            report(size, "batched", cluster, warmup, iterations, () -> service.deliverToMembers(dispatchBo, memberIds));
+        }
+    }
+
+    /**
+     * 改造前的扇出：逐成员调用 deliverToUserDevices（每成员 HGETALL，每设备 HMGET，每个远端设备一次发布）
+     */
+    private static void legacyFanout(DeliveryService service, MessageDispatchBo dispatchBo, List<Long> memberIds) {
+        for (Long uid : memberIds) {
+            service.deliverToUserDevices(new SendMessageBo(
+                    uid,
+                    dispatchBo.getContent(),
+                    dispatchBo.getChatType(),
+                    dispatchBo.getMsgType(),
+                    dispatchBo.getSenderId(),
+                    dispatchBo.getMessageId(),
+                    dispatchBo.getSendTime(),
+                    null,
+                    dispatchBo.getConversationId(),
+                    dispatchBo.getGroupId(),
+                    dispatchBo.getSeq()
+            ));
+        }
+    }
+
+    private static void report(int size, String path, SimulatedCluster cluster, int warmup, int iterations, Runnable fanout) {
+        for (int i = 0; i < warmup; i++) {
+            fanout.run();
+        }
+        cluster.roundTrips.set(0);
+        cluster.publishes.set(0);
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            fanout.run();
+            samples[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(samples);
+        long total = 0;
+        for (long s : samples) {
+            total += s;
+        }
+        System.out.printf("%-8d %-8s %10.2f %10.2f %10.2f %12d %12d%n",
+                size, path,
+                total / 1e6 / iterations,
+                percentile(samples, 0.50) / 1e6,
+                percentile(samples, 0.99) / 1e6,
+                cluster.roundTrips.get() / iterations,
+                cluster.publishes.get() / iterations);
+    }
+
+    private static DeliveryService newService(SimulatedCluster cluster, int routeBatchSize) {
+        DeliveryService service = new DeliveryService();
+        setField(service, "userChannelRegistry", new UserChannelRegistry());
+        setField(service, "rabbitTemplate", cluster.rabbitTemplate());
+        setField(service, "redisTemplate", cluster.redisTemplate());
+        // 无本地 Channel，SharedPush 不会触发编码
+        setField(service, "pushFrameEncoder", new PushFrameEncoder(null));
+        setField(service, "nodeName", LOCAL_NODE);
+        setField(service, "routeBatchSize", routeBatchSize);
+        return service;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException("Field not found: " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    private static void pause(long nanos) {
+        long end = System.nanoTime() + nanos;
+        long remain;
+        while ((remain = end - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remain);
+        }
+    }
+
+    /**
+     * 模拟 Redis 与 RabbitMQ：
+     * 每个用户固定 devices 台设备（user:devices:{uid}），按 (uid, deviceId) 哈希决定是否在线与所在节点
+     */
+    private static final class SimulatedCluster {
+
+        private final int devices;
+        private final int onlinePercent;
+        private final int nodes;
+        private final long rttNanos;
+        private final long commandNanos;
+        private final long publishNanos;
+        private final AtomicLong roundTrips = new AtomicLong();
+        private final AtomicLong publishes = new AtomicLong();
+
+        SimulatedCluster(int devices, int onlinePercent, int nodes, long rttMicros, long commandMicros, long publishMicros) {
+            this.devices = Math.max(1, devices);
+            this.onlinePercent = onlinePercent;
+            this.nodes = Math.max(1, nodes);
+            this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+            this.commandNanos = TimeUnit.MICROSECONDS.toNanos(commandMicros);
+            this.publishNanos = TimeUnit.MICROSECONDS.toNanos(publishMicros);
+        }
+
+        private void roundTrip(int commands) {
+            roundTrips.incrementAndGet();
+            pause(rttNanos + commands * commandNanos);
+        }
+
+        private Map<Object, Object> deviceMap(String userDevicesKey) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (int d = 0; d < devices; d++) {
+                map.put("device-" + d, "token-" + d);
+            }
+            return map;
+        }
+
+        /**
+         * ws:online:{uid}:{deviceId} -> [node, sessionId]，离线为 [null, null]
+         */
+        private List<Object> route(String wsOnlineKey) {
+            int h = wsOnlineKey.hashCode() & Integer.MAX_VALUE;
+            if (h % 100 >= onlinePercent) {
+                return Arrays.asList(null, null);
+            }
+            return Arrays.asList("node-" + (h / 100 % nodes), "session-" + h);
+        }
+
+        RabbitTemplate rabbitTemplate() {
+            return new RabbitTemplate() {
+                @Override
+                public void convertAndSend(String exchange, String routingKey, Object object) {
+                    publishes.incrementAndGet();
+                    pause(publishNanos);
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, String> redisTemplate() {
+            HashOperations<String, Object, Object> hashOps = (HashOperations<String, Object, Object>) Proxy.newProxyInstance(
+                    HashOperations.class.getClassLoader(),
+                    new Class<?>[]{HashOperations.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "entries" -> {
+                            roundTrip(1);
+                            yield deviceMap((String) args[0]);
+                        }
+                        case "multiGet" -> {
+                            roundTrip(1);
+                            yield route((String) args[0]);
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+
+            return new RedisTemplate<>() {
+                @Override
+                public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+                    return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOps;
+                }
+
+                @Override
+                public List<Object> executePipelined(RedisCallback<?> action, RedisSerializer<?> resultSerializer) {
+                    List<Object> results = new ArrayList<>();
+                    RedisHashCommands hashCommands = (RedisHashCommands) Proxy.newProxyInstance(
+                            RedisHashCommands.class.getClassLoader(),
+                            new Class<?>[]{RedisHashCommands.class},
+                            (proxy, method, args) -> {
+                                String key = new String((byte[]) args[0], StandardCharsets.UTF_8);
+                                switch (method.getName()) {
+                                    case "hKeys" -> results.add(new ArrayList<>(deviceMap(key).keySet()));
+                                    case "hMGet" -> results.add(route(key));
+                                    default -> throw new UnsupportedOperationException(method.getName());
+                                }
+                                // pipeline 中命令返回 null，结果在 closePipeline 时统一返回
+                                return null;
+                            });
+                    RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+                            RedisConnection.class.getClassLoader(),
+                            new Class<?>[]{RedisConnection.class},
+                            (proxy, method, args) -> {
+                                if ("hashCommands".equals(method.getName())) {
+                                    return hashCommands;
+                                }
+                                throw new UnsupportedOperationException(method.getName());
+                            });
+                    action.doInRedis(connection);
+                    roundTrip(results.size());
+                    return results;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.ecamt35.messageservice.service;
+
+import com.ecamt35.messageservice.mapper.MessageMapper;
+import com.ecamt35.messageservice.model.entity.Message;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MessageGroupCommitWriter 批窗口压测（独立 main，不依赖数据库与 Spring 容器）：
+ * <p>
+ * 1) MessageMapper 以动态代理模拟：每条语句固定往返耗时 + 每行耗时，并发语句数受连接池大小限制
+ * 2) 对每个 batch-window-millis 取值，N 个虚拟线程在固定时长内持续调用 persist（模拟并发发送）
+ * 3) 输出吞吐（行/秒）、平均批大小与 persist 延迟 p50/p99/max，窗口为 0 即逐行插入基线
+ * <p>
+ * 运行（在 message-service 目录）：
+ * <pre>
+ * mvn -o test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.ecamt35.messageservice.service.MessageGroupCommitWriterBenchmark
+ * </pre>
+ * 参数（-D）：bench.windows=0,1,2,5,10  bench.senders=200  bench.seconds=5  bench.warmup-seconds=1
+ * bench.rtt-micros=500  bench.row-micros=10  bench.pool=10  bench.batch-size=200  bench.flushers=2
+ */
+public class MessageGroupCommitWriterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long[] windows = Arrays.stream(System.getProperty("bench.windows", "0,1,2,5,10").split(","))
+                .map(String::trim)
+                .mapToLong(Long::parseLong)
+                .toArray();
+        int senders = Integer.getInteger("bench.senders", 200);
+        int seconds = Integer.getInteger("bench.seconds", 5);
+        int warmupSeconds = Integer.getInteger("bench.warmup-seconds", 1);
+        long rttMicros = Long.getLong("bench.rtt-micros", 500);
+        long rowMicros = Long.getLong("bench.row-micros", 10);
+        int pool = Integer.getInteger("bench.pool", 10);
+        int batchSize = Integer.getInteger("bench.batch-size", 200);
+        int flushers = Integer.getInteger("bench.flushers", 2);
+
+        System.out.printf("senders=%d, seconds=%d, rttUs=%d, rowUs=%d, pool=%d, batchSize=%d, flushers=%d%n",
+                senders, seconds, rttMicros, rowMicros, pool, batchSize, flushers);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s%n",
+                "windowMs", "rows/s", "avgBatch", "p50Us", "p99Us", "maxUs");
+
+        for (long window : windows) {
+            SimulatedDb db = new SimulatedDb(rttMicros, rowMicros, pool);
+            MessageGroupCommitWriter writer = newWriter(db.mapper(), window, batchSize, flushers);
+            try {
+                run(writer, senders, warmupSeconds, null);
+                long rowsBefore = writer.getRows();
+                long batchesBefore = writer.getBatches();
+                db.statements.set(0);
+
+                long[][] latencies = new long[senders][];
+                long elapsedNanos = run(writer, senders, seconds, latencies);
+
+                long rows = writer.getRows() - rowsBefore;
+                long batches = writer.getBatches() - batchesBefore;
+                long[] all = merge(latencies);
+                // 窗口为 0 时不经过 flusher，计数器不增长，按调用次数统计
+                if (window <= 0) {
+                    rows = all.length;
+                    batches = db.statements.get();
+                }
+                System.out.printf("%-10d %12.0f %10.1f %10d %10d %10d%n",
+                        window,
+                        rows * 1e9 / elapsedNanos,
+                        batches == 0 ? 0.0 : (double) rows / batches,
+                        percentile(all, 0.50) / 1_000,
+                        percentile(all, 0.99) / 1_000,
+                        all.length == 0 ? 0 : all[all.length - 1] / 1_000);
+            } finally {
+                writer.destroy();
+            }
+        }
+    }
+
+    /**
+     * 所有发送线程在 seconds 内持续 persist，latencies 非空时记录每次调用耗时
+     *
+     * @return 实际压测时长（纳秒）
+     */
+    private static long run(MessageGroupCommitWriter writer, int senders, int seconds, long[][] latencies)
+            throws InterruptedException {
+        AtomicLong ids = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < senders; i++) {
+                final int sender = i;
+                executor.execute(() -> {
+                    long[] samples = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        Message msg = new Message();
+                        msg.setId(ids.incrementAndGet());
+                        msg.setConversationId((long) sender);
+                        msg.setSenderId((long) sender);
+                        long t0 = System.nanoTime();
+                        writer.persist(msg);
+                        if (latencies != null) {
+                            if (n == samples.length) {
+                                samples = Arrays.copyOf(samples, n * 2);
+                            }
+                            samples[n++] = System.nanoTime() - t0;
+                        }
+                    }
+                    if (latencies != null) {
+                        latencies[sender] = Arrays.copyOf(samples, n);
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static MessageGroupCommitWriter newWriter(MessageMapper mapper, long window, int batchSize, int flushers) {
+        MessageGroupCommitWriter writer = new MessageGroupCommitWriter();
+        setField(writer, "messageMapper", mapper);
+        setField(writer, "batchWindowMillis", window);
+        setField(writer, "batchSize", batchSize);
+        setField(writer, "flusherCount", flushers);
+        writer.init();
+        return writer;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException("Field not found: " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    private static long[] merge(long[][] parts) {
+        List<long[]> present = new ArrayList<>();
+        int total = 0;
+        for (long[] p : parts) {
+            if (p != null) {
+                present.add(p);
+                total += p.length;
+            }
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (long[] p : present) {
+            System.arraycopy(p, 0, all, pos, p.length);
+            pos += p.length;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    /**
+     * 模拟数据库：语句耗时 = 往返耗时 + 行数 × 每行耗时，最多 pool 条语句并发执行
+     */
+    private static final class SimulatedDb {
+
+        private final long rttNanos;
+        private final long rowNanos;
+        private final Semaphore connections;
+        private final AtomicLong statements = new AtomicLong();
+
+        SimulatedDb(long rttMicros, long rowMicros, int pool) {
+            this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+            this.rowNanos = TimeUnit.MICROSECONDS.toNanos(rowMicros);
+            this.connections = new Semaphore(Math.max(1, pool), true);
+        }
+
+        MessageMapper mapper() {
+            return (MessageMapper) Proxy.newProxyInstance(
+                    MessageMapper.class.getClassLoader(),
+                    new Class<?>[]{MessageMapper.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "insert" -> execute(1);
+                        case "batchInsert" -> execute(((List<?>) args[0]).size());
+                        case "toString" -> "SimulatedMessageMapper";
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private int execute(int rows) throws InterruptedException {
+            connections.acquire();
+            try {
+                statements.incrementAndGet();
+                long end = System.nanoTime() + rttNanos + rows * rowNanos;
+                long remain;
+                while ((remain = end - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remain);
+                }
+                return rows;
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
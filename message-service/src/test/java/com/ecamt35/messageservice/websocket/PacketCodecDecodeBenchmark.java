@@ -0,0 +1,207 @@
+package com.ecamt35.messageservice.websocket;
+
+import cn.hutool.core.convert.Convert;
+import com.ecamt35.messageservice.config.JacksonConfig;
+import com.ecamt35.messageservice.constant.PacketTypeConstant;
+import com.ecamt35.messageservice.model.dto.ClientAckReadDto;
+import com.ecamt35.messageservice.model.dto.ClientSendMessageDto;
+import com.ecamt35.messageservice.model.dto.CommonPacketDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * PacketCodec 上行解码压测（独立 main，不依赖 JMH）：
+ * <p>
+ * 1) 代表性 CLIENT_REQUEST_SENT / CLIENT_ACK_READ 帧（池外直接内存，与 Netty 解码出的帧一致），
+ * 分别走旧路径（frame.text() -> CommonPacketDto{Map data} -> Hutool Convert 组装载荷）与
+ * 新路径（PacketCodec.decode 在 ByteBuf 上流式解析，data 一次绑定到载荷 record）
+ * 2) 充分预热后多轮测量，输出 ns/op 与每次解码分配字节数（线程分配计数器）；CBOR 帧只有新路径
+ * 3) 输出宽松输入在两条路径下的接受/拒绝情况：新路径类型不匹配时整个报文按 INVALID_MESSAGE_FORMAT 拒绝，
+ * 旧路径由 Convert 转换（无法转换时静默为 null）
+ * <p>
+ * 运行（在 message-service 目录）：
+ * <pre>
+ * mvn -o test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.ecamt35.messageservice.websocket.PacketCodecDecodeBenchmark
+ * </pre>
+ * 参数（-D）：bench.warmup=200000  bench.iterations=1000000  bench.rounds=5
+ */
+public class PacketCodecDecodeBenchmark {
+
+    private static final String SEND_JSON = """
+            {"packetType":100,"data":{"content":"hello, this is a representative chat message body",\
+            "clientMsgId":1739800000123456789,"chatType":1,"msgType":0,"receiverId":null,"conversationId":1234567890123}}""";
+
+    private static final String ACK_JSON = """
+            {"packetType":101,"data":{"conversationId":1234567890123,"readSeq":42}}""";
+
+    private static final Map<Integer, Class<?>> PAYLOAD_TYPES = Map.of(
+            PacketTypeConstant.CLIENT_REQUEST_SENT, ClientSendMessageDto.class,
+            PacketTypeConstant.CLIENT_ACK_READ, ClientAckReadDto.class
+    );
+
+    private static final Function<Integer, Class<?>> PAYLOAD_TYPE_LOOKUP = PAYLOAD_TYPES::get;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile int sink;
+
+    /**
+     * 改造前的报文结构：data 反序列化为 LinkedHashMap
+     */
+    public static class LegacyPacket {
+        public Integer packetType;
+        public Map<String, Object> data;
+    }
+
+    private interface Decoder {
+        Object decode(WebSocketFrame frame) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int warmup = Integer.getInteger("bench.warmup", 200_000);
+        int iterations = Integer.getInteger("bench.iterations", 1_000_000);
+        int rounds = Integer.getInteger("bench.rounds", 5);
+
+        ObjectMapper mapper = new JacksonConfig().objectMapper();
+        ObjectMapper cborMapper = mapper.copyWith(new CBORFactory());
+        PacketCodec codec = new PacketCodec(mapper);
+
+        Decoder legacy = frame -> legacyDecode(mapper, ((TextWebSocketFrame) frame).text());
+        Decoder streaming = frame -> codec.decode(WireFormat.JSON, frame, PAYLOAD_TYPE_LOOKUP).getData();
+        Decoder streamingCbor = frame -> codec.decode(WireFormat.CBOR, frame, PAYLOAD_TYPE_LOOKUP).getData();
+
+        System.out.printf("warmup=%d, iterations=%d, rounds=%d%n", warmup, iterations, rounds);
+        System.out.printf("%-12s %-22s %8s %12s %12s%n", "packet", "path", "bytes", "ns/op", "alloc B/op");
+
+        for (String json : List.of(SEND_JSON, ACK_JSON)) {
+            String name = json == SEND_JSON ? "SEND" : "ACK_READ";
+            WebSocketFrame text = new TextWebSocketFrame(direct(json.getBytes(StandardCharsets.UTF_8)));
+            WebSocketFrame binary = new BinaryWebSocketFrame(direct(cborMapper.writeValueAsBytes(mapper.readTree(json))));
+            try {
+                // 两条路径结果一致才有可比性
+                Object expected = legacy.decode(text);
+                if (!expected.equals(streaming.decode(text)) || !expected.equals(streamingCbor.decode(binary))) {
+                    throw new IllegalStateException("Decoded payload mismatch: " + name);
+                }
+                measure(name, "legacy json+Convert", text, legacy, warmup, iterations, rounds);
+                measure(name, "streaming json", text, streaming, warmup, iterations, rounds);
+                measure(name, "streaming cbor", binary, streamingCbor, warmup, iterations, rounds);
+            } finally {
+                text.release();
+                binary.release();
+            }
+        }
+
+        printCoercion(mapper, codec);
+    }
+
+    private static Object legacyDecode(ObjectMapper mapper, String text) throws Exception {
+        LegacyPacket packet = mapper.readValue(text, LegacyPacket.class);
+        Map<String, Object> data = packet.data;
+        if (packet.packetType == PacketTypeConstant.CLIENT_REQUEST_SENT) {
+            return new ClientSendMessageDto(
+                    Convert.toStr(data.get("content")),
+                    Convert.toLong(data.get("clientMsgId")),
+                    Convert.toInt(data.get("chatType")),
+                    Convert.toInt(data.get("msgType")),
+                    Convert.toLong(data.get("receiverId")),
+                    Convert.toLong(data.get("conversationId"))
+            );
+        }
+        return new ClientAckReadDto(
+                Convert.toLong(data.get("conversationId")),
+                Convert.toLong(data.get("readSeq"))
+        );
+    }
+
+    private static void measure(String packet, String path, WebSocketFrame frame, Decoder decoder,
+                                int warmup, int iterations, int rounds) throws Exception {
+        run(frame, decoder, warmup);
+        long threadId = Thread.currentThread().threadId();
+        double bestNs = Double.MAX_VALUE;
+        double allocPerOp = 0;
+        for (int r = 0; r < rounds; r++) {
+            long allocBefore = THREAD_MX.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            run(frame, decoder, iterations);
+            long elapsed = System.nanoTime() - start;
+            long alloc = THREAD_MX.getThreadAllocatedBytes(threadId) - allocBefore;
+            bestNs = Math.min(bestNs, (double) elapsed / iterations);
+            allocPerOp = (double) alloc / iterations;
+        }
+        System.out.printf("%-12s %-22s %8d %12.1f %12.0f%n",
+                packet, path, frame.content().readableBytes(), bestNs, allocPerOp);
+    }
+
+    private static void run(WebSocketFrame frame, Decoder decoder, int iterations) throws Exception {
+        int h = 0;
+        for (int i = 0; i < iterations; i++) {
+            h += decoder.decode(frame).hashCode();
+        }
+        sink += h;
+    }
+
+    /**
+     * 宽松输入兼容性：旧路径 Convert 转换，新路径按载荷 record 严格绑定
+     */
+    private static void printCoercion(ObjectMapper mapper, PacketCodec codec) {
+        Map<String, String> variants = new java.util.LinkedHashMap<>();
+        variants.put("id as string", "\"clientMsgId\":\"1739800000123456789\",\"chatType\":1");
+        variants.put("int as float", "\"clientMsgId\":1,\"chatType\":1.0");
+        variants.put("int as boolean", "\"clientMsgId\":1,\"chatType\":true");
+        variants.put("empty string id", "\"clientMsgId\":\"\",\"chatType\":1");
+        variants.put("non-numeric id", "\"clientMsgId\":\"abc\",\"chatType\":1");
+        variants.put("content as number", "\"content\":123,\"clientMsgId\":1,\"chatType\":1");
+        variants.put("content as object", "\"content\":{\"text\":\"x\"},\"clientMsgId\":1,\"chatType\":1");
+
+        System.out.println();
+        System.out.printf("%-20s %-46s %s%n", "SEND variant", "legacy json+Convert", "streaming json");
+        for (Map.Entry<String, String> e : variants.entrySet()) {
+            String json = "{\"packetType\":100,\"data\":{" + e.getValue() + ",\"msgType\":0,\"conversationId\":1}}";
+            TextWebSocketFrame frame = new TextWebSocketFrame(direct(json.getBytes(StandardCharsets.UTF_8)));
+            try {
+                System.out.printf("%-20s %-46s %s%n", e.getKey(),
+                        outcome(() -> legacyDecode(mapper, frame.text())),
+                        outcome(() -> {
+                            CommonPacketDto<Object> p = codec.decode(WireFormat.JSON, frame, PAYLOAD_TYPE_LOOKUP);
+                            return p.getData();
+                        }));
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    private interface Attempt {
+        Object run() throws Exception;
+    }
+
+    private static String outcome(Attempt attempt) {
+        try {
+            ClientSendMessageDto dto = (ClientSendMessageDto) attempt.run();
+            return "ok content=" + dto.content() + " clientMsgId=" + dto.clientMsgId() + " chatType=" + dto.chatType();
+        } catch (Exception e) {
+            return "REJECTED (" + e.getClass().getSimpleName() + ")";
+        }
+    }
+
+    private static ByteBuf direct(byte[] bytes) {
+        ByteBuf buf = Unpooled.directBuffer(bytes.length);
+        buf.writeBytes(bytes);
+        return buf;
+    }
+}